@@ -156,6 +156,17 @@ public class ClientConnection implements AutoCloseable {
         return sendAndWait(new RequestMessage("requestGame", UUID.randomUUID().toString(), Map.of()));
     }
 
+    /** Joins the pool of a preset time control: bullet, blitz or rapid. */
+    public CompletableFuture<StatusMessage> requestGame(String timeControl) {
+        return sendAndWait(new RequestMessage("requestGame", UUID.randomUUID().toString(),
+                Map.of("timeControl", timeControl)));
+    }
+
+    public CompletableFuture<StatusMessage> requestCustomGame(int baseSeconds, int incrementSeconds) {
+        return sendAndWait(new RequestMessage("requestGame", UUID.randomUUID().toString(),
+                Map.of("timeControl", "custom", "baseSeconds", baseSeconds, "incrementSeconds", incrementSeconds)));
+    }
+
     public CompletableFuture<StatusMessage> makeMove(String gameId, String move) {
         return sendAndWait(new RequestMessage("makeMove", UUID.randomUUID().toString(),
                 Map.of("gameId", gameId, "move", move)));
@@ -5,6 +5,10 @@ import com.example.chess.client.net.ClientConnection;
 import com.example.chess.client.ui.menu.Menu;
 import com.example.chess.client.ui.menu.MenuItem;
 import com.example.chess.client.view.ConsoleView;
+import com.example.chess.common.message.StatusMessage;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 public class LobbyScreen implements Screen {
 
@@ -60,13 +64,30 @@ public class LobbyScreen implements Screen {
         view.showMessage("Exiting...");
     }
 
-    private void requestGame() {
+    private void requestGame() throws InterruptedException {
         if (state.isWaitingForMatch()) {
             view.showMessage("Already waiting for a match.");
             return;
         }
 
-        var status = conn.requestGame().join();
+        String control = view.askLine("Time control (bullet/blitz/rapid/custom) [blitz]: ").trim().toLowerCase(Locale.ROOT);
+        if (control.isEmpty()) control = "blitz";
+
+        CompletableFuture<StatusMessage> request;
+        if (control.equals("custom")) {
+            try {
+                int minutes = Integer.parseInt(view.askLine("Minutes per side: ").trim());
+                int increment = Integer.parseInt(view.askLine("Increment (seconds): ").trim());
+                request = conn.requestCustomGame(minutes * 60, increment);
+            } catch (NumberFormatException e) {
+                view.showError("Please enter whole numbers.");
+                return;
+            }
+        } else {
+            request = conn.requestGame(control);
+        }
+
+        var status = request.join();
         if (status.isError()) {
             view.showError(status.getMessage());
             return;
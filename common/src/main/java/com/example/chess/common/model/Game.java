@@ -83,6 +83,39 @@ public class Game {
         for (String m : moves) moveHistory.add(new MoveEntry(null, m, 0L));
     }
 
+    /** Deep copy for handing a consistent snapshot to another thread (move entries are immutable and shared). */
+    public Game copy() {
+        Game g = new Game();
+        g.id = id;
+        g.whiteUser = whiteUser;
+        g.blackUser = blackUser;
+        g.whiteMove = whiteMove;
+        g.createdAt = createdAt;
+        g.lastUpdate = lastUpdate;
+        g.timeControlMs = timeControlMs;
+        g.incrementMs = incrementMs;
+        g.whiteTimeMs = whiteTimeMs;
+        g.blackTimeMs = blackTimeMs;
+        g.whiteOfflineSince = whiteOfflineSince;
+        g.blackOfflineSince = blackOfflineSince;
+        g.result = result;
+        g.resultReason = resultReason;
+        g.rated = rated;
+        g.drawOfferedBy = drawOfferedBy;
+        g.board = board == null ? null : board.copy();
+        g.moves = moves == null ? null : new ArrayList<>(moves);
+        g.moveHistory = moveHistory == null ? null : new ArrayList<>(moveHistory);
+        g.wK = wK;
+        g.wQ = wQ;
+        g.bK = bK;
+        g.bQ = bQ;
+        g.enPassantRow = enPassantRow;
+        g.enPassantCol = enPassantCol;
+        g.capturedByWhite = capturedByWhite == null ? null : new ArrayList<>(capturedByWhite);
+        g.capturedByBlack = capturedByBlack == null ? null : new ArrayList<>(capturedByBlack);
+        return g;
+    }
+
     public boolean hasAnyMoves() {
         return (moves != null && !moves.isEmpty()) || (moveHistory != null && !moveHistory.isEmpty());
     }
@@ -142,6 +175,7 @@ public class Game {
     public void setMoves(List<String> moves) { this.moves = moves; }
 
     public List<MoveEntry> getMoveHistory() { return moveHistory; }
+    public void setMoveHistory(List<MoveEntry> moveHistory) { this.moveHistory = moveHistory; }
 
     public boolean isWK() { return wK; }
     public void setWK(boolean wK) { this.wK = wK; }
@@ -162,8 +196,10 @@ public class Game {
     public void setEnPassantCol(int enPassantCol) { this.enPassantCol = enPassantCol; }
 
     public List<String> getCapturedByWhite() { return capturedByWhite; }
+    public void setCapturedByWhite(List<String> capturedByWhite) { this.capturedByWhite = capturedByWhite; }
 
     public List<String> getCapturedByBlack() { return capturedByBlack; }
+    public void setCapturedByBlack(List<String> capturedByBlack) { this.capturedByBlack = capturedByBlack; }
 
     public void addCapturedByWhite(char piece) {
         if (capturedByWhite == null) capturedByWhite = new ArrayList<>();
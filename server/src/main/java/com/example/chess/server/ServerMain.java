@@ -1,15 +1,19 @@
 package com.example.chess.server;
 
 import com.example.chess.server.client.ClientHandler;
+import com.example.chess.server.client.PushDispatcher;
 import com.example.chess.server.core.*;
 import com.example.chess.server.core.move.MoveService;
 import com.example.chess.server.fs.FileStores;
 import com.example.chess.server.fs.ServerState;
 import com.example.chess.server.fs.ServerStateStore;
 import com.example.chess.server.fs.repository.UserRepository;
+import com.example.chess.server.util.FlightRecording;
 import com.example.chess.server.util.Log;
+import com.example.chess.server.util.MonitoredThreadPoolExecutor;
 import com.example.chess.server.util.ServerMetrics;
 import com.example.chess.server.util.ServerMetricsReporter;
+import com.example.chess.server.util.TimerService;
 import com.example.chess.server.util.PrometheusMetricsServer;
 import com.example.chess.server.security.Tls;
 
@@ -25,9 +29,12 @@ import java.util.concurrent.*;
 public class ServerMain {
     public static void main(String[] args) throws IOException {
         Log.init();
+        FlightRecording flightRecording = FlightRecording.startIfEnabled();
 
         ServerConfig config = ServerConfig.load();
         FileStores stores = new FileStores(config.dataDir);
+        int archived = stores.archiveFinishedGames();
+        if (archived > 0) Log.info("Archived " + archived + " finished game file(s).");
 
         ServerStateStore stateStore = new ServerStateStore(config.dataDir);
         ServerState prevState = readServerState(stateStore);
@@ -39,13 +46,23 @@ public class ServerMain {
         ClockService clocks = new ClockService();
 
         StatsAndRatingService statsAndElo = new StatsAndRatingService(userRepo);
-        try (MoveService moves = new MoveService(stores, clocks, statsAndElo)) {
+        try (stores;
+             TimerService timers = new TimerService();
+             MoveService moves = new MoveService(stores, clocks, statsAndElo, timers)) {
 
-            moves.recoverOngoingGames(stores.loadAllGames(), lastDownAtMs);
+            moves.recoverOngoingGames(stores.loadOngoingGames(), lastDownAtMs);
 
-            MatchmakingService matchmaking = new MatchmakingService(moves);
+            MatchmakingService matchmaking = new MatchmakingService(moves, timers);
             OnlineUserRegistry online = new OnlineUserRegistry();
             ServerMetrics metrics = new ServerMetrics(online::onlineCount, matchmaking::queueSize, moves::activeGameCount);
+            timers.registerMetrics(metrics);
+            moves.registerMetrics(metrics);
+            matchmaking.registerMetrics(metrics);
+            matchmaking.start();
+            PushDispatcher pushes = new PushDispatcher(
+                    Math.max(1, Integer.getInteger("chess.push.threads", Math.max(2, Runtime.getRuntime().availableProcessors() / 2))),
+                    Math.max(1, Integer.getInteger("chess.push.maxPendingPerClient", 1024)));
+            pushes.registerMetrics(metrics);
             ServerMetricsReporter metricsReporter = new ServerMetricsReporter(metrics);
             metricsReporter.start();
             PrometheusMetricsServer prometheus = new PrometheusMetricsServer(metrics);
@@ -55,19 +72,21 @@ public class ServerMain {
             AuthService auth = new AuthService(userRepo);
 
             ServerSocket serverSocket = createServerSocket(config.port, config.tls, config.tlsClientAuth);
-            ThreadPoolExecutor clientPool = createClientPool(config.coreThreads, config.maxThreads, config.queueCapacity);
+            MonitoredThreadPoolExecutor clientPool = createClientPool(config.coreThreads, config.maxThreads, config.queueCapacity);
+            clientPool.registerMetrics(metrics, "client");
 
             AtomicBoolean running = new AtomicBoolean(true);
 
             String instanceId = java.util.UUID.randomUUID().toString();
 
-            ServerHeartbeatService heartBeat = startHeartbeat(stateStore, instanceId);
-            registerShutdownHook(running, serverSocket, clientPool, heartBeat, metricsReporter, prometheus);
+            ServerHeartbeatService heartBeat = startHeartbeat(stateStore, instanceId, timers);
+            registerShutdownHook(running, serverSocket, clientPool, moves, pushes, heartBeat, metricsReporter, prometheus,
+                    flightRecording);
 
             Log.info("Chess server starting on port: " + config.port + " ...");
             config.logSummary();
 
-            acceptLoop(running, serverSocket, clientPool, auth, coordinator, moves, metrics);
+            acceptLoop(running, serverSocket, clientPool, auth, coordinator, moves, pushes, metrics);
         }
     }
 
@@ -97,8 +116,8 @@ public class ServerMain {
         return serverSocket;
     }
 
-    private static ThreadPoolExecutor createClientPool(int core, int max, int queueCap) {
-        return new ThreadPoolExecutor(
+    private static MonitoredThreadPoolExecutor createClientPool(int core, int max, int queueCap) {
+        return new MonitoredThreadPoolExecutor(
                 core,
                 max,
                 60L, TimeUnit.SECONDS,
@@ -112,8 +131,9 @@ public class ServerMain {
         );
     }
 
-    private static ServerHeartbeatService startHeartbeat(ServerStateStore stateStore, String instanceId) {
-        ServerHeartbeatService heartBeat = new ServerHeartbeatService(stateStore, instanceId);
+    private static ServerHeartbeatService startHeartbeat(ServerStateStore stateStore, String instanceId,
+                                                         TimerService timers) {
+        ServerHeartbeatService heartBeat = new ServerHeartbeatService(stateStore, instanceId, timers);
         heartBeat.start();
         return heartBeat;
     }
@@ -121,9 +141,12 @@ public class ServerMain {
     private static void registerShutdownHook(AtomicBoolean running,
                                              ServerSocket serverSocket,
                                              ThreadPoolExecutor clientPool,
+                                             MoveService moves,
+                                             PushDispatcher pushes,
                                              ServerHeartbeatService heartBeat,
                                              ServerMetricsReporter metricsReporter,
-                                             PrometheusMetricsServer prometheus) {
+                                             PrometheusMetricsServer prometheus,
+                                             FlightRecording flightRecording) {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             running.set(false);
 
@@ -134,6 +157,10 @@ public class ServerMain {
             }
 
             clientPool.shutdown();
+            if (!moves.flushPersistence(10_000L)) {
+                Log.warn("Shutdown before all game snapshots were written.", null);
+            }
+            pushes.close();
             try {
                 heartBeat.markGracefulShutdown();
             } catch (RuntimeException e) {
@@ -154,6 +181,7 @@ public class ServerMain {
             } catch (RuntimeException e) {
                 Log.warn("Failed to stop Prometheus metrics server.", e);
             }
+            if (flightRecording != null) flightRecording.close();
             Log.shutdown();
         }, "server.shutdown"));
     }
@@ -164,6 +192,7 @@ public class ServerMain {
                                    AuthService auth,
                                    GameCoordinator coordinator,
                                    MoveService moves,
+                                   PushDispatcher pushes,
                                    ServerMetrics metrics) throws IOException {
         while (running.get()) {
             try {
@@ -172,7 +201,7 @@ public class ServerMain {
                 clientSocket.setKeepAlive(true);
 
                 try {
-                    clientPool.execute(new ClientHandler(clientSocket, auth, coordinator, moves, metrics));
+                    clientPool.execute(new ClientHandler(clientSocket, auth, coordinator, moves, metrics, pushes));
                 } catch (RejectedExecutionException rex) {
                     try {
                         clientSocket.close();
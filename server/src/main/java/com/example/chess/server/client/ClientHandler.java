@@ -10,7 +10,9 @@ import com.example.chess.server.AuthService;
 import com.example.chess.server.core.GameCoordinator;
 import com.example.chess.server.core.move.MoveService;
 import com.example.chess.server.security.RateLimiter;
+import com.example.chess.server.util.FlightEvents;
 import com.example.chess.server.util.Log;
+import com.example.chess.server.util.RequestType;
 import com.example.chess.server.util.ServerMetrics;
 
 import java.io.*;
@@ -31,6 +33,7 @@ public class ClientHandler implements Runnable {
     private final Object writeLock = new Object();
     private final String clientIp;
     private final ServerMetrics metrics;
+    private final PushDispatcher.Recipient pushes; // null: pushes are written on the caller thread
 
     private BufferedWriter out;
 
@@ -41,7 +44,17 @@ public class ClientHandler implements Runnable {
                          GameCoordinator coordinator,
                          MoveService moves,
                          ServerMetrics metrics) {
+        this(socket, auth, coordinator, moves, metrics, null);
+    }
+
+    public ClientHandler(Socket socket,
+                         AuthService auth,
+                         GameCoordinator coordinator,
+                         MoveService moves,
+                         ServerMetrics metrics,
+                         PushDispatcher pushDispatcher) {
         this.socket = socket;
+        this.pushes = pushDispatcher == null ? null : pushDispatcher.newRecipient(this::writeLine, this::closeQuietly);
         this.router = new ClientRequestRouter(auth, coordinator, moves, metrics);
         this.clientIp = resolveClientIp(socket);
         this.metrics = metrics;
@@ -100,7 +113,9 @@ public class ClientHandler implements Runnable {
 
         Message parsed;
         try {
+            long decodeStart = System.nanoTime();
             parsed = MessageCodec.fromJsonLine(line);
+            if (metrics != null) metrics.onRequestDecoded(System.nanoTime() - decodeStart);
         } catch (Exception e) {
             if (metrics != null) metrics.onInvalidRequest();
             send(ResponseMessage.error(null, "Invalid message: " + e.getMessage()));
@@ -118,11 +133,13 @@ public class ClientHandler implements Runnable {
             if (metrics != null) metrics.onRequest(req.getType());
             if (inboundLimiter != null && !inboundLimiter.tryAcquire()) {
                 if (metrics != null) metrics.onRateLimited();
+                FlightEvents.rateLimited("connection", clientIp, username, RequestType.of(req.getType()).wireName());
                 send(ResponseMessage.error(req.getCorrId(), "rate_limited"));
                 return;
             }
             if (inboundIpLimiter != null && !inboundIpLimiter.tryAcquire()) {
                 if (metrics != null) metrics.onRateLimited();
+                FlightEvents.rateLimited("ip", clientIp, username, RequestType.of(req.getType()).wireName());
                 send(ResponseMessage.error(req.getCorrId(), "rate_limited"));
                 return;
             }
@@ -132,8 +149,48 @@ public class ClientHandler implements Runnable {
     }
 
     public void send(ResponseMessage m) {
+        String line;
+        try {
+            line = MessageCodec.toJsonLine(m);
+        } catch (Exception e) {
+            Log.warn("Failed to encode response to client", e);
+            return;
+        }
+        if (pushes != null) {
+            pushes.respond(line);
+        } else {
+            writeLine(line);
+        }
+    }
+
+    /**
+     * Sends a server-initiated message without blocking the caller on this client's socket. The
+     * message is encoded here, so the payload may reference live game state.
+     */
+    public void push(ResponseMessage m) {
+        if (pushes == null) {
+            String line;
+            try {
+                line = MessageCodec.toJsonLine(m);
+            } catch (Exception e) {
+                Log.warn("Failed to encode push to client", e);
+                return;
+            }
+            FlightEvents.PushSent event = new FlightEvents.PushSent();
+            event.begin();
+            writeLine(line);
+            FlightEvents.commitPush(event, line, 0L);
+            return;
+        }
+        try {
+            pushes.push(MessageCodec.toJsonLine(m));
+        } catch (Exception e) {
+            Log.warn("Failed to encode push to client", e);
+        }
+    }
+
+    private void writeLine(String line) {
         try {
-            String line = MessageCodec.toJsonLine(m);
             synchronized (writeLock) {
                 if (out == null) return;
                 out.write(line);
@@ -144,8 +201,16 @@ public class ClientHandler implements Runnable {
         }
     }
 
+    private void closeQuietly() {
+        try {
+            if (socket != null) socket.close();
+        } catch (IOException e) {
+            Log.warn("Failed to close client socket", e);
+        }
+    }
+
     public void sendInfo(String message) {
-        send(ResponseMessage.push("info", Map.of("message", message)));
+        push(ResponseMessage.push("info", Map.of("message", message)));
     }
 
     public void pushGameStarted(Game g, boolean isWhite) {
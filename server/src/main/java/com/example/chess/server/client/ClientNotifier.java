@@ -22,7 +22,7 @@ public final class ClientNotifier {
         p.put("capturedByWhite", g.getCapturedByWhite());
         p.put("capturedByBlack", g.getCapturedByBlack());
         p.put("rated", g.isRated());
-        h.send(ResponseMessage.push("gameStarted", p));
+        h.push(ResponseMessage.push("gameStarted", p));
     }
 
     public void move(ClientHandler h, Game g, String by, String move, boolean wChk, boolean bChk) {
@@ -39,7 +39,7 @@ public final class ClientNotifier {
         p.put("capturedByWhite", g.getCapturedByWhite());
         p.put("capturedByBlack", g.getCapturedByBlack());
         p.put("rated", g.isRated());
-        h.send(ResponseMessage.push("move", p));
+        h.push(ResponseMessage.push("move", p));
     }
 
     public void gameOver(ClientHandler h, Game g, boolean statsOk, boolean persistOk) {
@@ -53,14 +53,14 @@ public final class ClientNotifier {
         p.put("board", g.getBoard().toUnicodePrettyString());
         p.put("capturedByWhite", g.getCapturedByWhite());
         p.put("capturedByBlack", g.getCapturedByBlack());
-        h.send(ResponseMessage.push("gameOver", p));
+        h.push(ResponseMessage.push("gameOver", p));
     }
 
     public void drawOffered(ClientHandler h, String gameId, String by) {
-        h.send(ResponseMessage.push("drawOffered", Map.of("gameId", gameId, "by", by)));
+        h.push(ResponseMessage.push("drawOffered", Map.of("gameId", gameId, "by", by)));
     }
 
     public void drawDeclined(ClientHandler h, String gameId, String by) {
-        h.send(ResponseMessage.push("drawDeclined", Map.of("gameId", gameId, "by", by)));
+        h.push(ResponseMessage.push("drawDeclined", Map.of("gameId", gameId, "by", by)));
     }
 }
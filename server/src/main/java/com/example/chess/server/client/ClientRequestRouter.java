@@ -7,6 +7,7 @@ import com.example.chess.server.AuthService;
 import com.example.chess.server.core.GameCoordinator;
 import com.example.chess.server.core.move.MoveService;
 import com.example.chess.server.util.Log;
+import com.example.chess.server.util.RequestType;
 import com.example.chess.server.util.ServerMetrics;
 
 import java.util.HashMap;
@@ -40,6 +41,8 @@ final class ClientRequestRouter {
 
         String t = req.getType();
         String corrId = req.getCorrId();
+        RequestType type = RequestType.of(t);
+        long startNanos = System.nanoTime();
 
         try {
             switch (t) {
@@ -62,17 +65,19 @@ final class ClientRequestRouter {
                 case "getStats" -> authHandler.getStats(req, h);
 
                 default -> {
-                    if (metrics != null) metrics.onError(req.getType());
+                    if (metrics != null) metrics.onError(type);
                     h.send(ResponseMessage.error(corrId, "Unknown message type: " + t));
                 }
             }
         } catch (IllegalArgumentException ex) {
-            if (metrics != null) metrics.onError(req.getType());
+            if (metrics != null) metrics.onError(type);
             h.send(ResponseMessage.error(corrId, ex.getMessage()));
         } catch (Exception ex) {
-            if (metrics != null) metrics.onError(req.getType());
+            if (metrics != null) metrics.onError(type);
             Log.warn("Unhandled request failure type=" + t + " corrId=" + corrId, ex);
             h.send(ResponseMessage.error(corrId, "Internal server error."));
+        } finally {
+            if (metrics != null) metrics.onRequestCompleted(type, System.nanoTime() - startNanos);
         }
     }
 
@@ -20,7 +20,7 @@ final class GameRequestHandler {
 
     void requestGame(RequestMessage req, ClientHandler h) throws IOException {
         UserModels.User u = mustLogin(h);
-        coordinator.requestGame(h, u);
+        coordinator.requestGame(h, u, RequestValidator.timeControl(req));
         h.send(ResponseMessage.ok("requestGameOk", req.getCorrId()));
     }
 
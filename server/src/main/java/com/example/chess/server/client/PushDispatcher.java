@@ -0,0 +1,167 @@
+package com.example.chess.server.client;
+
+import com.example.chess.server.util.FlightEvents;
+import com.example.chess.server.util.LatencyHistogram;
+import com.example.chess.server.util.Log;
+import com.example.chess.server.util.SerialExecutor;
+import com.example.chess.server.util.ServerMetrics;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Writes server pushes on a small "client-push" pool instead of the thread that produced them,
+ * so a slow socket only delays its own recipient. Each recipient has its own ordered queue; at most
+ * one pool thread works on a recipient at a time. A recipient that falls too far behind is
+ * disconnected, since dropping a single push would leave its board out of sync.
+ */
+public final class PushDispatcher implements AutoCloseable {
+
+    private final ThreadPoolExecutor pool;
+    private final int maxPendingPerRecipient;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final LatencyHistogram latencyMicros = new LatencyHistogram();
+
+    public PushDispatcher(int threads, int maxPendingPerRecipient) {
+        if (threads <= 0 || maxPendingPerRecipient <= 0) {
+            throw new IllegalArgumentException("threads and maxPendingPerRecipient must be positive.");
+        }
+        this.maxPendingPerRecipient = maxPendingPerRecipient;
+        AtomicInteger seq = new AtomicInteger();
+        // Unbounded queue is fine: each recipient schedules at most one drain at a time.
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "client-push-" + seq.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /** Ordered push queue of one connection; {@code onOverflow} runs once it exceeds its limit. */
+    public final class Recipient {
+        private final SerialExecutor queue = new SerialExecutor(pool);
+        private final AtomicInteger queued = new AtomicInteger();
+        private final Consumer<String> writer;
+        private final Runnable onOverflow;
+        private volatile boolean overflowed;
+
+        private Recipient(Consumer<String> writer, Runnable onOverflow) {
+            this.writer = writer;
+            this.onOverflow = onOverflow;
+        }
+
+        /** Queues an already encoded line; it is written by the pool in call order. */
+        public void push(String line) {
+            if (overflowed) return;
+            if (queued.incrementAndGet() > maxPendingPerRecipient) {
+                queued.decrementAndGet();
+                overflow();
+                return;
+            }
+            pending.incrementAndGet();
+            long queuedAt = System.nanoTime();
+            try {
+                queue.execute(() -> write(line, queuedAt));
+            } catch (RejectedExecutionException e) {
+                write(line, queuedAt); // shutting down, deliver on the caller thread
+            }
+        }
+
+        /**
+         * Writes a response line. With no push waiting it is written on the caller thread; otherwise it
+         * queues behind the pending pushes, so a response never overtakes a push produced before it.
+         */
+        public void respond(String line) {
+            if (overflowed) return;
+            if (queued.get() == 0) {
+                writer.accept(line);
+                return;
+            }
+            queued.incrementAndGet();
+            Runnable write = () -> {
+                try {
+                    writer.accept(line);
+                } finally {
+                    queued.decrementAndGet();
+                }
+            };
+            try {
+                queue.execute(write);
+            } catch (RejectedExecutionException e) {
+                write.run();
+            }
+        }
+
+        private void write(String line, long queuedAt) {
+            try {
+                long startedAt = System.nanoTime();
+                FlightEvents.PushSent event = new FlightEvents.PushSent();
+                event.begin();
+                writer.accept(line);
+                FlightEvents.commitPush(event, line, startedAt - queuedAt);
+                sent.incrementAndGet();
+                latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - queuedAt));
+            } finally {
+                queued.decrementAndGet();
+                pending.decrementAndGet();
+            }
+        }
+
+        private void overflow() {
+            synchronized (this) {
+                if (overflowed) return;
+                overflowed = true;
+            }
+            overflows.incrementAndGet();
+            Log.warn("Client fell " + maxPendingPerRecipient + " pushes behind, disconnecting.", null);
+            try {
+                onOverflow.run();
+            } catch (RuntimeException e) {
+                Log.warn("Failed to disconnect slow client.", e);
+            }
+        }
+    }
+
+    public Recipient newRecipient(Consumer<String> writer, Runnable onOverflow) {
+        if (writer == null || onOverflow == null) throw new IllegalArgumentException("Missing writer or overflow action.");
+        return new Recipient(writer, onOverflow);
+    }
+
+    public LatencyHistogram latency() {
+        return latencyMicros;
+    }
+
+    public void registerMetrics(ServerMetrics metrics) {
+        metrics.registerGauge("chess_push_queue_depth", "Pushes waiting to be written to clients.", pending::get);
+        metrics.registerCounter("chess_push_sent_total", "Pushes written to clients since start.", sent::get);
+        metrics.registerCounter("chess_push_overflow_disconnects_total",
+                "Clients disconnected for falling behind on pushes.", overflows::get);
+        metrics.registerHistogram("chess_push_latency_seconds", "Time from enqueueing a push to writing it.",
+                null, null, latencyMicros);
+    }
+
+    /** Writes what is already queued, waiting up to {@code timeoutMs}. */
+    public void close(long timeoutMs) {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                Log.warn("Push pool stopped with " + pending.get() + " unsent push(es).", null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        close(5_000L);
+    }
+}
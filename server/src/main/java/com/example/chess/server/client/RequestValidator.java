@@ -1,6 +1,7 @@
 package com.example.chess.server.client;
 
 import com.example.chess.common.message.RequestMessage;
+import com.example.chess.server.core.TimeControl;
 
 import java.util.regex.Pattern;
 
@@ -74,6 +75,24 @@ final class RequestValidator {
         return move;
     }
 
+    /** Optional {@code timeControl} preset name, or "custom" with {@code baseSeconds}/{@code incrementSeconds}; defaults to blitz. */
+    static TimeControl timeControl(RequestMessage req) {
+        Object v = req == null || req.getPayload() == null ? null : req.getPayload().get("timeControl");
+        if (v == null) return TimeControl.BLITZ;
+        if (!(v instanceof String name)) throw new IllegalArgumentException("Expected string field: timeControl");
+        if (!TimeControl.CUSTOM.equalsIgnoreCase(name.trim())) return TimeControl.preset(name);
+        return TimeControl.custom(reqWholeNumber(req, "baseSeconds"), reqWholeNumber(req, "incrementSeconds"));
+    }
+
+    private static long reqWholeNumber(RequestMessage m, String key) {
+        Object v = m.getPayload().get(key);
+        if (v == null) throw new IllegalArgumentException("Missing field: " + key);
+        if (!(v instanceof Number n)) throw new IllegalArgumentException("Expected number field: " + key);
+        double d = n.doubleValue();
+        if (d != Math.rint(d) || Double.isInfinite(d)) throw new IllegalArgumentException("Expected whole number: " + key);
+        return (long) d;
+    }
+
     private static String reqStr(RequestMessage m, String key) {
         if (m == null || m.getPayload() == null) throw new IllegalArgumentException("Missing payload.");
         Object v = m.getPayload().get(key);
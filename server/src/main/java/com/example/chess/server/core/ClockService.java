@@ -1,37 +1,94 @@
 package com.example.chess.server.core;
 
 import com.example.chess.common.model.Game;
+import com.example.chess.server.util.HashedWheelTimer;
+import com.example.chess.server.util.TimerService;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+/**
+ * Chess clocks kept as "remaining at the last move + when the side to move started", measured with
+ * {@link System#nanoTime()}. Remaining time is computed on read; nothing is written between moves.
+ */
 public class ClockService {
 
+    /** Immutable clock state, replaced on every move. */
+    private record Snapshot(long whiteMs, long blackMs, boolean whiteToMove, long turnStartNanos, long incrementMs) {
+        long remainingMs(boolean white, long nowNanos) {
+            long base = white ? whiteMs : blackMs;
+            if (white != whiteToMove) return base;
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(Math.max(0, nowNanos - turnStartNanos));
+            return Math.max(0, base - elapsedMs);
+        }
+    }
+
     private static final class State {
-        long whiteMs;
-        long blackMs;
-        long lastTickMs;
-        boolean whiteToMove;
-        long incrementMs;
+        volatile Snapshot snapshot;
+        HashedWheelTimer.Timeout flag; // guarded by this
+
+        State(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
     }
 
     private final ConcurrentMap<String, State> clocks = new ConcurrentHashMap<>();
 
+    private volatile TimerService flagTimer;
+    private volatile Consumer<String> onFlagDue;
+
+    /**
+     * Arms a timer for each game at the moment the side to move would run out of time, so games are only
+     * touched when a flag can actually fall. {@code onFlagDue} receives the game id and is expected to
+     * {@link #sync} the game and either finish it or {@link #rearm} it.
+     */
+    public void attachFlagScheduler(TimerService timer, Consumer<String> onFlagDue) {
+        this.onFlagDue = onFlagDue;
+        this.flagTimer = timer;
+        for (String id : clocks.keySet()) rearm(id);
+    }
+
     public void register(Game g) {
         if (g == null || g.getId() == null) throw new IllegalArgumentException("Missing game.");
 
-        State s = new State();
-        s.whiteMs = g.getWhiteTimeMs();
-        s.blackMs = g.getBlackTimeMs();
-        s.whiteToMove = g.isWhiteMove();
-        s.incrementMs = g.getIncrementMs();
-        s.lastTickMs = System.currentTimeMillis();
+        State s = new State(new Snapshot(g.getWhiteTimeMs(), g.getBlackTimeMs(), g.isWhiteMove(),
+                System.nanoTime(), g.getIncrementMs()));
 
-        clocks.put(g.getId(), s);
+        State old = clocks.put(g.getId(), s);
+        if (old != null) cancelFlag(old);
+        rearm(g.getId());
     }
 
     public void stop(String gameId) {
-        if (gameId != null) clocks.remove(gameId);
+        if (gameId == null) return;
+        State s = clocks.remove(gameId);
+        if (s != null) cancelFlag(s);
+    }
+
+    /** Re-arms the flag timer for the side to move from the current clock state. */
+    public void rearm(String gameId) {
+        TimerService timer = flagTimer;
+        Consumer<String> handler = onFlagDue;
+        if (timer == null || handler == null || gameId == null) return;
+        State s = clocks.get(gameId);
+        if (s == null) return;
+
+        synchronized (s) {
+            if (s.flag != null) s.flag.cancel();
+            if (clocks.get(gameId) != s) return; // stopped or re-registered meanwhile
+            Snapshot snap = s.snapshot;
+            long remaining = snap.remainingMs(snap.whiteToMove(), System.nanoTime());
+            s.flag = timer.schedule(() -> handler.accept(gameId), remaining);
+        }
+    }
+
+    private static void cancelFlag(State s) {
+        synchronized (s) {
+            if (s.flag != null) s.flag.cancel();
+            s.flag = null;
+        }
     }
 
     public void onMoveApplied(Game g) {
@@ -39,50 +96,52 @@ public class ClockService {
         State s = clocks.get(g.getId());
         if (s == null) throw new IllegalArgumentException("Missing clock state.");
         synchronized (s) {
-            long now = System.currentTimeMillis();
-            long elapsed = Math.max(0, now - s.lastTickMs);
+            long now = System.nanoTime();
+            Snapshot cur = s.snapshot;
 
             // side that is currently to-move BEFORE flip is the mover
-            if (s.whiteToMove) {
-                s.whiteMs = Math.max(0, s.whiteMs - elapsed);
-                s.whiteMs += Math.max(0, s.incrementMs);
-            } else {
-                s.blackMs = Math.max(0, s.blackMs - elapsed);
-                s.blackMs += Math.max(0, s.incrementMs);
-            }
-
-            s.whiteToMove = !s.whiteToMove;
-            s.lastTickMs = now;
-
-            g.setWhiteTimeMs(s.whiteMs);
-            g.setBlackTimeMs(s.blackMs);
-            g.setWhiteMove(s.whiteToMove);
-            g.setLastUpdate(now);
+            long inc = Math.max(0, cur.incrementMs());
+            long whiteMs = cur.whiteMs();
+            long blackMs = cur.blackMs();
+            if (cur.whiteToMove()) whiteMs = cur.remainingMs(true, now) + inc;
+            else blackMs = cur.remainingMs(false, now) + inc;
+
+            Snapshot next = new Snapshot(whiteMs, blackMs, !cur.whiteToMove(), now, cur.incrementMs());
+            s.snapshot = next;
+
+            g.setWhiteTimeMs(next.whiteMs());
+            g.setBlackTimeMs(next.blackMs());
+            g.setWhiteMove(next.whiteToMove());
+            g.setLastUpdate(System.currentTimeMillis());
         }
+        rearm(g.getId());
     }
 
-    /** Tick without a move (for timeouts). Returns true if someone reached 0. */
-    public boolean tick(Game g) {
+    /** Remaining time for one side right now, or -1 if the game has no running clock. */
+    public long remainingMs(String gameId, boolean white) {
+        State s = gameId == null ? null : clocks.get(gameId);
+        if (s == null) return -1L;
+        return s.snapshot.remainingMs(white, System.nanoTime());
+    }
+
+    /**
+     * Copies the current remaining times into {@code g} for pushes and persistence, without changing the
+     * clock state. Returns true if someone has reached 0.
+     */
+    public boolean sync(Game g) {
         if (g == null || g.getId() == null) return false;
         State s = clocks.get(g.getId());
         if (s == null) return false;
 
-        synchronized (s) {
-            long now = System.currentTimeMillis();
-            long elapsed = Math.max(0, now - s.lastTickMs);
-            if (elapsed == 0) return false;
-
-            if (s.whiteToMove) s.whiteMs = Math.max(0, s.whiteMs - elapsed);
-            else s.blackMs = Math.max(0, s.blackMs - elapsed);
+        Snapshot snap = s.snapshot;
+        long now = System.nanoTime();
+        long whiteMs = snap.remainingMs(true, now);
+        long blackMs = snap.remainingMs(false, now);
 
-            s.lastTickMs = now;
+        g.setWhiteTimeMs(whiteMs);
+        g.setBlackTimeMs(blackMs);
+        g.setWhiteMove(snap.whiteToMove());
 
-            g.setWhiteTimeMs(s.whiteMs);
-            g.setBlackTimeMs(s.blackMs);
-            g.setWhiteMove(s.whiteToMove);
-            g.setLastUpdate(now);
-
-            return (s.whiteMs <= 0) || (s.blackMs <= 0);
-        }
+        return whiteMs <= 0 || blackMs <= 0;
     }
 }
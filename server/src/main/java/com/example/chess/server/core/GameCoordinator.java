@@ -14,7 +14,6 @@ public class GameCoordinator {
     private final MoveService moves;
     private final StatsService stats;
     private final OnlineUserRegistry online;
-    private final Object userStateLock = new Object();
 
     public GameCoordinator(MatchmakingService matchmaking, MoveService moves, StatsService stats, OnlineUserRegistry online) {
         this.matchmaking = matchmaking;
@@ -25,28 +24,33 @@ public class GameCoordinator {
 
     public void onUserOnline(ClientHandler h, User u) {
         if (u == null) throw new IllegalArgumentException("Missing user.");
-        synchronized (userStateLock) {
-            online.markOnline(u.getUsername(), h);
-        }
+        online.markOnline(u.getUsername(), h);
     }
 
     public void onUserOffline(ClientHandler h, User u) {
-        synchronized (userStateLock) {
-            if (u != null) online.markOffline(u.getUsername(), h);
-            matchmaking.onDisconnect(u);
-            moves.onDisconnect(u);
-        }
+        leave(h, u);
     }
 
     public void onUserLogout(ClientHandler h, User u) {
-        synchronized (userStateLock) {
-            if (u != null) online.markOffline(u.getUsername(), h);
+        leave(h, u);
+    }
+
+    /**
+     * Only the connection that owns the session cleans up after it, and a new login for the user is
+     * refused until the cleanup is done, so other users' transitions never wait on this one.
+     */
+    private void leave(ClientHandler h, User u) {
+        if (u == null || h == null || !online.beginOffline(u.getUsername(), h)) return;
+        try {
             matchmaking.onDisconnect(u);
             moves.onDisconnect(u);
+        } finally {
+            online.finishOffline(u.getUsername(), h);
         }
     }
 
     public void requestGame(ClientHandler h, User u) throws IOException { matchmaking.enqueue(h, u); }
+    public void requestGame(ClientHandler h, User u, TimeControl control) throws IOException { matchmaking.enqueue(h, u, control); }
     public void makeMove(String gameId, User u, String move) throws IOException { moves.makeMove(gameId, u, move); }
     public void offerDraw(String id, User u) throws IOException { moves.offerDraw(id, u); }
     public void respondDraw(String id, User u, boolean accept) throws IOException { moves.respondDraw(id, u, accept); }
@@ -0,0 +1,187 @@
+package com.example.chess.server.core;
+
+import com.example.chess.server.client.ClientHandler;
+import com.example.chess.server.util.LatencyHistogram;
+import com.example.chess.server.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Waiting players bucketed by rating band. Enqueue and removal are lock-free; pairing happens in
+ * {@link #matchBatch(long, Matcher)}, called periodically by a single matcher thread. A player accepts an
+ * opponent within a rating window that starts narrow and widens the longer they wait, without limit
+ * unless a maximum window is configured.
+ */
+final class MatchPool {
+
+    static final int BAND_WIDTH = 100;
+    private static final int BANDS = 32; // 0..3199, higher ratings share the top band
+
+    /** Starts a game for a pair; throws if the game could not be registered. */
+    @FunctionalInterface
+    interface Matcher {
+        void start(Waiter a, Waiter b) throws IOException;
+    }
+
+    record Waiter(String username, ClientHandler handler, int rating, long enqueuedAtNanos) {}
+
+    /** Match counters, shared by pools reported under the same time control. */
+    static final class Stats {
+        final AtomicLong matches = new AtomicLong();
+        final LatencyHistogram waitMs = new LatencyHistogram();
+    }
+
+    private final ConcurrentMap<String, Waiter> waiting = new ConcurrentHashMap<>();
+    private final List<Queue<Waiter>> bands = new ArrayList<>(BANDS);
+    private final int baseWindow;
+    private final int widenPerSecond;
+    private final int maxWindow;
+    private final Stats stats;
+    private final AtomicBoolean matching = new AtomicBoolean();
+
+    MatchPool(int baseWindow, int widenPerSecond, int maxWindow) {
+        this(baseWindow, widenPerSecond, maxWindow, new Stats());
+    }
+
+    /** @param maxWindow cap on the widened window; {@code <= 0} lets it grow until anyone can be matched */
+    MatchPool(int baseWindow, int widenPerSecond, int maxWindow, Stats stats) {
+        this.stats = stats;
+        this.baseWindow = baseWindow;
+        this.widenPerSecond = widenPerSecond;
+        this.maxWindow = maxWindow <= 0 ? Integer.MAX_VALUE : Math.max(baseWindow, maxWindow);
+        for (int i = 0; i < BANDS; i++) bands.add(new ConcurrentLinkedQueue<>());
+    }
+
+    /** Returns false if the user is already waiting. */
+    boolean add(Waiter w) {
+        if (waiting.putIfAbsent(w.username(), w) != null) return false;
+        bands.get(bandOf(w.rating())).add(w);
+        return true;
+    }
+
+    void remove(String username) {
+        waiting.remove(username); // band entries are dropped lazily by the matcher
+    }
+
+    int size() {
+        return waiting.size();
+    }
+
+    /** Claims the pool for one batch so parallel ticks never match it twice at once. */
+    boolean tryBeginBatch() {
+        return matching.compareAndSet(false, true);
+    }
+
+    void endBatch() {
+        matching.set(false);
+    }
+
+    /** Acceptable rating difference after waiting {@code waitedNanos}. */
+    int windowFor(long waitedNanos) {
+        long widened = baseWindow + TimeUnit.NANOSECONDS.toSeconds(Math.max(0L, waitedNanos)) * widenPerSecond;
+        return (int) Math.min(maxWindow, widened);
+    }
+
+    /**
+     * Pairs waiting players, longest-waiting first, each with the closest-rated partner inside the
+     * wider of the two windows. Unmatched players stay queued. Returns the number of games started.
+     */
+    int matchBatch(long nowNanos, Matcher matcher) {
+        List<Waiter> sorted = new ArrayList<>(waiting.size());
+        for (Queue<Waiter> band : bands) {
+            int start = sorted.size();
+            for (Waiter w; (w = band.poll()) != null; ) {
+                if (waiting.get(w.username()) == w) sorted.add(w);
+            }
+            sorted.subList(start, sorted.size()).sort(Comparator.comparingInt(Waiter::rating));
+        }
+        if (sorted.size() < 2) {
+            requeue(sorted, null);
+            return 0;
+        }
+
+        Integer[] byWait = new Integer[sorted.size()];
+        for (int i = 0; i < byWait.length; i++) byWait[i] = i;
+        Arrays.sort(byWait, Comparator.comparingLong(i -> sorted.get(i).enqueuedAtNanos()));
+
+        boolean[] taken = new boolean[sorted.size()];
+        int started = 0;
+        for (int idx : byWait) {
+            if (taken[idx]) continue;
+            Waiter a = sorted.get(idx);
+            int partner = closestPartner(sorted, taken, idx, nowNanos);
+            if (partner < 0) continue;
+            Waiter b = sorted.get(partner);
+            taken[idx] = true;
+            taken[partner] = true;
+            if (start(a, b, nowNanos, matcher)) started++;
+        }
+        requeue(sorted, taken);
+        return started;
+    }
+
+    private int closestPartner(List<Waiter> sorted, boolean[] taken, int idx, long nowNanos) {
+        Waiter a = sorted.get(idx);
+        int windowA = windowFor(nowNanos - a.enqueuedAtNanos());
+        int best = -1;
+        int bestDiff = Integer.MAX_VALUE;
+        for (int dir = -1; dir <= 1; dir += 2) {
+            for (int j = idx + dir; j >= 0 && j < sorted.size(); j += dir) {
+                if (taken[j]) continue;
+                Waiter b = sorted.get(j);
+                int diff = Math.abs(a.rating() - b.rating());
+                if (diff >= bestDiff || diff > maxWindow) break; // sorted by rating: only gets worse
+                if (diff <= Math.max(windowA, windowFor(nowNanos - b.enqueuedAtNanos()))) {
+                    best = j;
+                    bestDiff = diff;
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    private boolean start(Waiter a, Waiter b, long nowNanos, Matcher matcher) {
+        // A player who disconnected since the batch started loses the pairing; the other keeps waiting.
+        if (!waiting.remove(a.username(), a)) return false;
+        if (!waiting.remove(b.username(), b)) {
+            add(a);
+            return false;
+        }
+        try {
+            matcher.start(a, b);
+        } catch (IOException | RuntimeException e) {
+            Log.warn("Match failed; players returned to the queue.", e);
+            add(a);
+            add(b);
+            return false;
+        }
+        stats.matches.incrementAndGet();
+        stats.waitMs.record(TimeUnit.NANOSECONDS.toMillis(nowNanos - a.enqueuedAtNanos()));
+        stats.waitMs.record(TimeUnit.NANOSECONDS.toMillis(nowNanos - b.enqueuedAtNanos()));
+        return true;
+    }
+
+    private void requeue(List<Waiter> sorted, boolean[] taken) {
+        for (int i = 0; i < sorted.size(); i++) {
+            if (taken != null && taken[i]) continue;
+            Waiter w = sorted.get(i);
+            if (waiting.get(w.username()) == w) bands.get(bandOf(w.rating())).add(w);
+        }
+    }
+
+    private static int bandOf(int rating) {
+        return Math.min(BANDS - 1, Math.max(0, rating) / BAND_WIDTH);
+    }
+}
@@ -4,52 +4,137 @@ import com.example.chess.common.UserModels.User;
 import com.example.chess.common.model.Game;
 import com.example.chess.server.client.ClientHandler;
 import com.example.chess.server.core.move.MoveService;
+import com.example.chess.server.util.Log;
+import com.example.chess.server.util.ServerMetrics;
+import com.example.chess.server.util.TimerService;
 
 import java.io.IOException;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class MatchmakingService {
+/**
+ * Rating-aware matchmaking with one independent {@link MatchPool} per time control. Requests only
+ * join a pool; every {@code chess.matchmaking.intervalMs} a tick on the shared {@link TimerService}
+ * hands each non-empty pool to the "matchmaker-N" workers, so pools are matched in parallel.
+ */
+public class MatchmakingService implements AutoCloseable {
 
-    private final Map<String, ClientHandler> queue = new LinkedHashMap<>();
-    private final Object queueLock = new Object();
-    private final MoveService moves;
+    private static final int DEFAULT_RATING = 1200;
+    private static final List<String> REPORTED_CONTROLS = List.of("bullet", "blitz", "rapid", TimeControl.CUSTOM);
+
+    private record Pool(TimeControl control, MatchPool waiting) {}
 
-    public MatchmakingService(MoveService moves) {
+    private final MoveService moves;
+    private final int baseWindow = Integer.getInteger("chess.matchmaking.baseWindow", 100);
+    private final int widenPerSecond = Integer.getInteger("chess.matchmaking.widenPerSecond", 25);
+    private final int maxWindow = Integer.getInteger("chess.matchmaking.maxWindow", 0);
+    private final long intervalMs = Math.max(10L, Long.getLong("chess.matchmaking.intervalMs", 250L));
+
+    private final ConcurrentMap<String, Pool> pools = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> poolOfUser = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, MatchPool.Stats> statsByControl = new ConcurrentHashMap<>();
+    private final Set<String> toldMatchFailed = ConcurrentHashMap.newKeySet();
+
+    private final TimerService timers;
+    private final ExecutorService workers;
+    private volatile TimerService.Repeating tick;
+
+    public MatchmakingService(MoveService moves, TimerService timers) {
+        if (timers == null) throw new IllegalArgumentException("Missing timer service.");
         this.moves = moves;
+        this.timers = timers;
+        for (String control : REPORTED_CONTROLS) statsByControl.put(control, new MatchPool.Stats());
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(
+                Math.max(1, Integer.getInteger("chess.matchmaking.threads", 2)), r -> {
+                    Thread t = new Thread(r, "matchmaker-" + seq.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public void start() {
+        tick = timers.scheduleWithFixedDelay(this::dispatchBatches, intervalMs, intervalMs, false);
+    }
+
+    private void dispatchBatches() {
+        for (Pool pool : pools.values()) {
+            if (pool.waiting().size() < 2 || !pool.waiting().tryBeginBatch()) continue;
+            try {
+                workers.execute(() -> {
+                    try {
+                        match(pool);
+                    } catch (RuntimeException e) {
+                        Log.warn("Matchmaking batch failed for " + pool.control().poolKey(), e);
+                    } finally {
+                        pool.waiting().endBatch();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                pool.waiting().endBatch();
+                return; // shutting down
+            }
+        }
     }
 
     public void enqueue(ClientHandler h, User u) throws IOException {
+        enqueue(h, u, TimeControl.BLITZ);
+    }
+
+    public void enqueue(ClientHandler h, User u, TimeControl control) throws IOException {
         if (h == null || u == null || u.getUsername() == null) {
             throw new IllegalArgumentException("Missing handler or user.");
         }
+        if (control == null) throw new IllegalArgumentException("Missing time control.");
 
-        synchronized (queueLock) {
-            if (queue.containsKey(u.getUsername())) {
-                h.sendInfo("Already waiting for opponent.");
-                return;
-            }
-
-            if (queue.isEmpty()) {
-                queue.put(u.getUsername(), h);
-                h.sendInfo("Waiting for opponent...");
-                return;
-            }
+        String username = u.getUsername();
+        String key = control.poolKey();
+        if (poolOfUser.putIfAbsent(username, key) != null) {
+            h.sendInfo("Already waiting for opponent.");
+            return;
+        }
 
-            var it = queue.entrySet().iterator();
-            var entry = it.next();
-            it.remove();
+        Pool pool = pools.computeIfAbsent(key, k -> new Pool(control, new MatchPool(baseWindow, widenPerSecond, maxWindow,
+                statsByControl.computeIfAbsent(control.name(), n -> new MatchPool.Stats()))));
+        int rating = u.getStats() == null ? DEFAULT_RATING : u.getStats().getRating();
+        pool.waiting().add(new MatchPool.Waiter(username, h, rating, System.nanoTime()));
+        if (!key.equals(poolOfUser.get(username))) {
+            pool.waiting().remove(username); // disconnected while joining
+            return;
+        }
+        h.sendInfo("Waiting for opponent (" + control.name() + ")...");
+    }
 
-            startMatch(entry.getValue(), entry.getKey(), h, u);
+    /** Runs one matching batch over every pool on the caller thread; returns the number of games started. */
+    int matchNow() {
+        int started = 0;
+        for (Pool pool : pools.values()) {
+            if (!pool.waiting().tryBeginBatch()) continue;
+            try {
+                started += match(pool);
+            } finally {
+                pool.waiting().endBatch();
+            }
         }
+        return started;
+    }
+
+    private int match(Pool pool) {
+        return pool.waiting().matchBatch(System.nanoTime(), (a, b) -> startMatch(pool.control(), a, b));
     }
 
-    private void startMatch(ClientHandler h1, String u1, ClientHandler h2, User u2) throws IOException {
-        boolean h1IsWhite = Math.random() < 0.5;
+    private void startMatch(TimeControl control, MatchPool.Waiter a, MatchPool.Waiter b) throws IOException {
+        boolean aIsWhite = Math.random() < 0.5;
 
-        String whiteUser = h1IsWhite ? u1 : u2.getUsername();
-        String blackUser = h1IsWhite ? u2.getUsername() : u1;
+        String whiteUser = aIsWhite ? a.username() : b.username();
+        String blackUser = aIsWhite ? b.username() : a.username();
 
         Game g = new Game();
         g.setId(UUID.randomUUID().toString());
@@ -60,34 +145,77 @@ public class MatchmakingService {
         g.setCreatedAt(now);
         g.setLastUpdate(now);
 
-        g.setTimeControlMs(5 * 60_000L);
-        g.setIncrementMs(3_000L);
+        g.setTimeControlMs(control.baseMs());
+        g.setIncrementMs(control.incrementMs());
         g.setWhiteTimeMs(g.getTimeControlMs());
         g.setBlackTimeMs(g.getTimeControlMs());
         g.setWhiteMove(true);
 
         try {
-            moves.registerGame(g, whiteUser, blackUser, h1, h2, h1IsWhite);
+            moves.registerGame(g, whiteUser, blackUser, a.handler(), b.handler(), aIsWhite);
         } catch (IOException e) {
-            queue.put(u1, h1);
-            queue.put(u2.getUsername(), h2);
-            if (h1 != null) h1.sendInfo("Match failed; you're back in the queue.");
-            if (h2 != null) h2.sendInfo("Match failed; you're back in the queue.");
+            notifyMatchFailed(a);
+            notifyMatchFailed(b);
             throw e;
         }
+        String key = control.poolKey();
+        poolOfUser.remove(a.username(), key);
+        poolOfUser.remove(b.username(), key);
+        toldMatchFailed.remove(a.username());
+        toldMatchFailed.remove(b.username());
+    }
+
+    /** Tells a player once per queue stay; retries run every batch and would otherwise repeat it. */
+    private void notifyMatchFailed(MatchPool.Waiter w) {
+        if (w.handler() != null && toldMatchFailed.add(w.username())) {
+            w.handler().sendInfo("Match failed; you're back in the queue.");
+        }
     }
 
     public void onDisconnect(User u) {
         if (u == null || u.getUsername() == null || u.getUsername().isBlank()) return;
-        String username = u.getUsername();
-        synchronized (queueLock) {
-            queue.remove(username);
-        }
+        toldMatchFailed.remove(u.getUsername());
+        String key = poolOfUser.remove(u.getUsername());
+        if (key == null) return;
+        Pool pool = pools.get(key);
+        if (pool != null) pool.waiting().remove(u.getUsername());
     }
 
     public int queueSize() {
-        synchronized (queueLock) {
-            return queue.size();
+        return poolOfUser.size();
+    }
+
+    private long waitingIn(String controlName) {
+        long n = 0;
+        for (Pool pool : pools.values()) {
+            if (pool.control().name().equals(controlName)) n += pool.waiting().size();
+        }
+        return n;
+    }
+
+    /** Per time control: waiting players, games started (rate() gives the match rate) and queue-time percentiles. */
+    public void registerMetrics(ServerMetrics metrics) {
+        for (String control : REPORTED_CONTROLS) {
+            MatchPool.Stats s = statsByControl.get(control);
+            metrics.registerGauge("chess_matchmaking_pool_size", "Players waiting per time control.",
+                    "control", control, () -> waitingIn(control));
+            metrics.registerCounter("chess_matchmaking_matches_total", "Games started by the matchmaker.",
+                    "control", control, s.matches::get);
+            metrics.registerGauge("chess_matchmaking_wait_p50_ms", "Median queue time of matched players (ms).",
+                    "control", control, () -> s.waitMs.percentile(0.50));
+            metrics.registerGauge("chess_matchmaking_wait_p90_ms", "90th percentile queue time of matched players (ms).",
+                    "control", control, () -> s.waitMs.percentile(0.90));
+            metrics.registerGauge("chess_matchmaking_wait_p99_ms", "99th percentile queue time of matched players (ms).",
+                    "control", control, () -> s.waitMs.percentile(0.99));
+            metrics.registerGauge("chess_matchmaking_wait_max_ms", "Longest queue time of a matched player (ms).",
+                    "control", control, s.waitMs::max);
         }
     }
+
+    @Override
+    public void close() {
+        TimerService.Repeating t = tick;
+        if (t != null) t.cancel();
+        workers.shutdownNow();
+    }
 }
@@ -4,27 +4,72 @@ import com.example.chess.server.client.ClientHandler;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Per-user session state machine: OFFLINE -> ONLINE -> DISCONNECTING -> OFFLINE. Every transition is
+ * a compare-and-set on that user's entry only, so logins and disconnects of different users never
+ * wait on each other. An absent entry means OFFLINE.
+ */
 public final class OnlineUserRegistry {
-    private final ConcurrentMap<String, ClientHandler> online = new ConcurrentHashMap<>();
 
+    public enum State { ONLINE, DISCONNECTING, OFFLINE }
+
+    private record Session(State state, ClientHandler handler) {}
+
+    private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger onlineCount = new AtomicInteger();
+
+    /** OFFLINE -> ONLINE for {@code handler}; idempotent for the same handler. */
     public void markOnline(String username, ClientHandler handler) {
-        if (username == null || username.isBlank()) throw new IllegalArgumentException("Missing username.");
-        if (handler == null) throw new IllegalArgumentException("Missing client handler.");
+        requireArgs(username, handler);
 
-        ClientHandler prev = online.putIfAbsent(username, handler);
-        if (prev != null && prev != handler) {
-            throw new IllegalArgumentException("User '" + username + "' is already logged in.");
+        Session next = new Session(State.ONLINE, handler);
+        Session cur = sessions.putIfAbsent(username, next);
+        if (cur == null) {
+            onlineCount.incrementAndGet();
+            return;
         }
+        if (cur.handler() == handler && cur.state() == State.ONLINE) return;
+        if (cur.state() == State.DISCONNECTING) {
+            throw new IllegalArgumentException("Previous session of '" + username + "' is still closing, try again.");
+        }
+        throw new IllegalArgumentException("User '" + username + "' is already logged in.");
     }
 
-    public void markOffline(String username, ClientHandler handler) {
-        if (username == null || username.isBlank()) throw new IllegalArgumentException("Missing username.");
-        if (handler == null) throw new IllegalArgumentException("Missing client handler.");
-        online.remove(username, handler);
+    /**
+     * ONLINE -> DISCONNECTING, only if {@code handler} owns the session. Returns false when another
+     * connection owns it or it is already going away, in which case the caller must not clean up.
+     */
+    public boolean beginOffline(String username, ClientHandler handler) {
+        requireArgs(username, handler);
+        Session cur = sessions.get(username);
+        if (cur == null || cur.state() != State.ONLINE || cur.handler() != handler) return false;
+        if (!sessions.replace(username, cur, new Session(State.DISCONNECTING, handler))) return false;
+        onlineCount.decrementAndGet();
+        return true;
+    }
+
+    /** DISCONNECTING -> OFFLINE once cleanup after {@link #beginOffline} has finished. */
+    public void finishOffline(String username, ClientHandler handler) {
+        requireArgs(username, handler);
+        Session cur = sessions.get(username);
+        if (cur != null && cur.state() == State.DISCONNECTING && cur.handler() == handler) {
+            sessions.remove(username, cur);
+        }
+    }
+
+    public State stateOf(String username) {
+        Session s = username == null ? null : sessions.get(username);
+        return s == null ? State.OFFLINE : s.state();
     }
 
     public int onlineCount() {
-        return online.size();
+        return onlineCount.get();
+    }
+
+    private static void requireArgs(String username, ClientHandler handler) {
+        if (username == null || username.isBlank()) throw new IllegalArgumentException("Missing username.");
+        if (handler == null) throw new IllegalArgumentException("Missing client handler.");
     }
 }
@@ -1,23 +1,49 @@
 package com.example.chess.server.core;
 
+import com.example.chess.server.util.HashedWheelTimer;
+import com.example.chess.server.util.TimerService;
+
 import java.util.Map;
-import java.util.concurrent.*;
+import java.util.concurrent.ConcurrentHashMap;
 
-public final class ReconnectService {
+/**
+ * Reconnect grace timers keyed by game and user, on the shared {@link TimerService}. Scheduling and
+ * cancelling are O(1), so a mass disconnect only adds wheel entries. Drop tasks must not block.
+ */
+public final class ReconnectService implements AutoCloseable {
 
     private final long graceMs;
+    private final TimerService timers;
+    private final boolean ownsTimers;
+
+    private final Map<String, Drop> pending = new ConcurrentHashMap<>();
 
-    private final ScheduledExecutorService exec =
-            Executors.newSingleThreadScheduledExecutor(r -> {
-                Thread t = new Thread(r, "reconnect-grace");
-                t.setDaemon(true);
-                return t;
-            });
+    /** Published in {@link #pending} before its timer is armed, so an immediate fire can remove it. */
+    private static final class Drop {
+        volatile HashedWheelTimer.Timeout timeout;
+        volatile boolean cancelled;
 
-    private final Map<String, ScheduledFuture<?>> pending = new ConcurrentHashMap<>();
+        void cancel() {
+            cancelled = true;
+            HashedWheelTimer.Timeout t = timeout;
+            if (t != null) t.cancel();
+        }
+    }
 
+    /** Uses a private timer, stopped by {@link #close()}; the server passes its shared one instead. */
     public ReconnectService(long graceMs) {
+        this(graceMs, new TimerService(), true);
+    }
+
+    public ReconnectService(long graceMs, TimerService timers) {
+        this(graceMs, timers, false);
+    }
+
+    private ReconnectService(long graceMs, TimerService timers, boolean ownsTimers) {
+        if (timers == null) throw new IllegalArgumentException("Missing timer service.");
         this.graceMs = graceMs;
+        this.timers = timers;
+        this.ownsTimers = ownsTimers;
     }
 
     public long getGraceMs() {
@@ -25,17 +51,29 @@ public final class ReconnectService {
     }
 
     public void scheduleDrop(String key, Runnable task, long delayMs) {
-        cancel(key);
-        long d = Math.max(0L, delayMs);
-        ScheduledFuture<?> f = exec.schedule(() -> {
-            try { task.run(); }
-            finally { pending.remove(key); }
-        }, d, TimeUnit.MILLISECONDS);
-        pending.put(key, f);
+        Drop drop = new Drop();
+        Drop prev = pending.put(key, drop);
+        if (prev != null) prev.cancel();
+        drop.timeout = timers.schedule(() -> {
+            if (pending.remove(key, drop)) task.run();
+        }, Math.max(0L, delayMs));
+        if (drop.cancelled) drop.timeout.cancel(); // cancelled before the timeout was published
     }
 
     public void cancel(String key) {
-        ScheduledFuture<?> f = pending.remove(key);
-        if (f != null) f.cancel(false);
+        Drop d = pending.remove(key);
+        if (d != null) d.cancel();
+    }
+
+    /** Grace timers that have not fired or been cancelled yet. */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /** Cancels pending grace timers and stops the timer if this service created it. */
+    @Override
+    public void close() {
+        for (String key : pending.keySet()) cancel(key);
+        if (ownsTimers) timers.close();
     }
-}
\ No newline at end of file
+}
@@ -2,35 +2,34 @@ package com.example.chess.server.core;
 
 import com.example.chess.server.fs.ServerState;
 import com.example.chess.server.fs.ServerStateStore;
-
-import java.util.concurrent.*;
+import com.example.chess.server.util.TimerService;
 
 public final class ServerHeartbeatService implements AutoCloseable {
     private final ServerStateStore store;
     private final String instanceId;
 
-    private final ScheduledExecutorService exec = Executors.newSingleThreadScheduledExecutor(r -> {
-        Thread t = new Thread(r, "server-heartbeat");
-        t.setDaemon(true);
-        return t;
-    });
+    private final TimerService timers;
+    private volatile TimerService.Repeating beat;
 
-    public ServerHeartbeatService(ServerStateStore store, String instanceId) {
+    public ServerHeartbeatService(ServerStateStore store, String instanceId, TimerService timers) {
         if (store == null) throw new IllegalArgumentException("store is null");
         if (instanceId == null || instanceId.isBlank()) throw new IllegalArgumentException("instanceId is blank");
+        if (timers == null) throw new IllegalArgumentException("timers is null");
         this.store = store;
         this.instanceId = instanceId;
+        this.timers = timers;
     }
 
+    /** Writes the heartbeat every second on the timer's offload pool, since it touches the disk. */
     public void start() {
-        exec.scheduleAtFixedRate(() -> {
+        beat = timers.scheduleWithFixedDelay(() -> {
             ServerState s = new ServerState();
             s.setInstanceId();
             s.setLastHeartbeatAtMs(System.currentTimeMillis());
             s.setLastShutdownAtMs(0L);
             s.setGraceful(false);
             store.write(s);
-        }, 0, 1000, TimeUnit.MILLISECONDS);
+        }, 0, 1000, true);
     }
 
     public void markGracefulShutdown() {
@@ -45,6 +44,7 @@ public final class ServerHeartbeatService implements AutoCloseable {
 
     @Override
     public void close() {
-        exec.shutdownNow();
+        TimerService.Repeating b = beat;
+        if (b != null) b.cancel();
     }
 }
\ No newline at end of file
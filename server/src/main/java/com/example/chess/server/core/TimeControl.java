@@ -0,0 +1,43 @@
+package com.example.chess.server.core;
+
+import java.util.Locale;
+
+/**
+ * Clock settings a player asks for in {@code requestGame}. Players are only paired with others who
+ * asked for exactly the same settings; {@link #poolKey()} identifies that pool.
+ */
+public record TimeControl(String name, long baseMs, long incrementMs) {
+
+    public static final TimeControl BULLET = new TimeControl("bullet", 60_000L, 0L);
+    public static final TimeControl BLITZ = new TimeControl("blitz", 5 * 60_000L, 3_000L);
+    public static final TimeControl RAPID = new TimeControl("rapid", 15 * 60_000L, 10_000L);
+
+    public static final String CUSTOM = "custom";
+    public static final int MAX_CUSTOM_BASE_SECONDS = 3 * 60 * 60;
+    public static final int MAX_CUSTOM_INCREMENT_SECONDS = 60;
+
+    /** Preset by name, case-insensitive. */
+    public static TimeControl preset(String name) {
+        if (name == null) throw new IllegalArgumentException("Missing time control.");
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "bullet" -> BULLET;
+            case "blitz" -> BLITZ;
+            case "rapid" -> RAPID;
+            default -> throw new IllegalArgumentException("Unknown time control: " + name);
+        };
+    }
+
+    public static TimeControl custom(long baseSeconds, long incrementSeconds) {
+        if (baseSeconds < 30 || baseSeconds > MAX_CUSTOM_BASE_SECONDS) {
+            throw new IllegalArgumentException("Custom base time must be 30.." + MAX_CUSTOM_BASE_SECONDS + " seconds.");
+        }
+        if (incrementSeconds < 0 || incrementSeconds > MAX_CUSTOM_INCREMENT_SECONDS) {
+            throw new IllegalArgumentException("Custom increment must be 0.." + MAX_CUSTOM_INCREMENT_SECONDS + " seconds.");
+        }
+        return new TimeControl(CUSTOM, baseSeconds * 1_000L, incrementSeconds * 1_000L);
+    }
+
+    public String poolKey() {
+        return CUSTOM.equals(name) ? CUSTOM + ":" + baseMs / 1_000L + "+" + incrementMs / 1_000L : name;
+    }
+}
@@ -1,23 +1,79 @@
 package com.example.chess.server.core.move;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.example.chess.server.util.ServerMetrics;
+
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Active games split into shards by game-id hash. Each shard has its own map and its own worker
+ * thread, which runs every command of the games it owns, so shards never contend with each other.
+ */
+final class ActiveGames implements AutoCloseable {
 
-final class ActiveGames {
+    private static final class Shard {
+        final Map<String, GameContext> games = new ConcurrentHashMap<>();
+        final Executor executor;
+        final ThreadPoolExecutor pool; // null when commands run inline
+        final AtomicLong lagMs = new AtomicLong();
+
+        Shard(Executor executor, ThreadPoolExecutor pool) {
+            this.executor = executor;
+            this.pool = pool;
+        }
+
+        int queueDepth() {
+            return pool == null ? 0 : pool.getQueue().size();
+        }
+    }
 
-    private final Map<String, GameContext> active = new ConcurrentHashMap<>();
+    private final Shard[] shards;
     private final Map<String, String> userToGame = new ConcurrentHashMap<>();
 
+    /** One shard whose commands run inline on the submitting thread, still one at a time per game. */
+    ActiveGames() {
+        this.shards = new Shard[] {new Shard(Runnable::run, null)};
+    }
+
+    ActiveGames(int shardCount) {
+        if (shardCount <= 0) throw new IllegalArgumentException("shardCount must be positive.");
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            String name = "game-shard-" + i;
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                        Thread t = new Thread(r, name);
+                        t.setDaemon(true);
+                        return t;
+                    });
+            shards[i] = new Shard(pool, pool);
+        }
+    }
+
+    private Shard shardFor(String gameId) {
+        int h = gameId.hashCode();
+        return shards[Math.floorMod(h ^ (h >>> 16), shards.length)];
+    }
+
     void put(GameContext ctx) {
-        active.put(ctx.getGame().getId(), ctx);
+        Shard shard = shardFor(ctx.getGame().getId());
+        ctx.attachMailbox(new GameMailbox(shard.executor));
+        shard.games.put(ctx.getGame().getId(), ctx);
         indexUsers(ctx);
     }
 
+    GameContext ctx(String gameId) {
+        return gameId == null ? null : shardFor(gameId).games.get(gameId);
+    }
+
     GameContext mustCtx(String gameId) {
         if (gameId == null || gameId.isBlank()) throw new IllegalArgumentException("Missing gameId.");
-        GameContext ctx = active.get(gameId);
+        GameContext ctx = shardFor(gameId).games.get(gameId);
         if (ctx == null) throw new IllegalArgumentException("No such active game.");
         return ctx;
     }
@@ -26,7 +82,7 @@ final class ActiveGames {
         if (username == null) return null;
         String gid = userToGame.get(username);
         if (gid == null) return null;
-        return active.get(gid);
+        return ctx(gid);
     }
 
     void remove(GameContext ctx) {
@@ -35,7 +91,7 @@ final class ActiveGames {
         }
 
         String gid = ctx.getGame().getId();
-        active.remove(gid);
+        shardFor(gid).games.remove(gid);
 
         if (ctx.getGame().getWhiteUser() != null) userToGame.remove(ctx.getGame().getWhiteUser(), gid);
         if (ctx.getGame().getBlackUser() != null) userToGame.remove(ctx.getGame().getBlackUser(), gid);
@@ -46,11 +102,52 @@ final class ActiveGames {
         if (ctx.getGame().getBlackUser() != null) userToGame.put(ctx.getGame().getBlackUser(), ctx.getGame().getId());
     }
 
-    List<GameContext> snapshot() {
-        return new ArrayList<>(active.values());
+    int size() {
+        int n = 0;
+        for (Shard s : shards) n += s.games.size();
+        return n;
     }
 
-    int size() {
-        return active.size();
+    /** Queues a no-op on every shard and records how long it waited behind real work. */
+    void probeLag() {
+        for (Shard s : shards) {
+            if (s.pool == null) continue;
+            long queuedAt = System.nanoTime();
+            try {
+                s.executor.execute(() -> s.lagMs.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt)));
+            } catch (RuntimeException ignored) {
+                // shutting down
+            }
+        }
+    }
+
+    void registerMetrics(ServerMetrics metrics) {
+        for (int i = 0; i < shards.length; i++) {
+            Shard s = shards[i];
+            String id = Integer.toString(i);
+            metrics.registerGauge("chess_game_shard_games", "Active games per shard.", "shard", id,
+                    s.games::size);
+            metrics.registerGauge("chess_game_shard_queue_depth", "Commands waiting on the shard thread.", "shard", id,
+                    s::queueDepth);
+            metrics.registerGauge("chess_game_shard_lag_ms", "Last measured shard queueing delay (ms).", "shard", id,
+                    s.lagMs::get);
+        }
+    }
+
+    /** Stops the shard threads after the commands already queued have run. */
+    @Override
+    public void close() {
+        for (Shard s : shards) {
+            if (s.pool != null) s.pool.shutdown();
+        }
+        for (Shard s : shards) {
+            if (s.pool == null) continue;
+            try {
+                s.pool.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
     }
 }
@@ -0,0 +1,193 @@
+package com.example.chess.server.core.move;
+
+import com.example.chess.common.model.Game;
+import com.example.chess.server.fs.repository.GameRepository;
+import com.example.chess.server.util.Log;
+import com.example.chess.server.util.ServerMetrics;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes game snapshots on a single "game-writer" thread so moves do not wait for the disk.
+ * Snapshots are coalesced per game (only the newest pending one is written), queued ids are bounded
+ * and a full queue blocks the submitter. A per-game stripe lock keeps async and synchronous writes of
+ * the same game in submission order. A failed write stays pending and is retried by the writer once the
+ * queue is idle, until it succeeds, is superseded, or {@link #close(long)} gives up on it.
+ */
+final class AsyncGameWriter implements AutoCloseable {
+    private static final int STRIPES = 64;
+    private static final long RETRY_BACKOFF_MS = 100L;
+
+    private record Pending(Game snapshot, long queuedAtNanos) {}
+
+    private final GameRepository repo;
+    private final BlockingQueue<String> queue;
+    private final ConcurrentMap<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Object[] stripes = new Object[STRIPES];
+    private final Deque<String> retries = new ArrayDeque<>(); // writer thread only
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean abandoned;
+    private final AtomicInteger writing = new AtomicInteger();
+
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong writeErrors = new AtomicLong();
+    private final AtomicLong lastLagMs = new AtomicLong();
+    private final AtomicLong maxLagMs = new AtomicLong();
+
+    AsyncGameWriter(GameRepository repo, int capacity) {
+        this.repo = repo;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Object();
+        this.writer = new Thread(this::run, "game-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Queues {@code snapshot} (which must not be mutated afterwards), replacing any older pending one. */
+    void submit(Game snapshot) {
+        String id = snapshot.getId();
+        Pending prev = pending.put(id, new Pending(snapshot, System.nanoTime()));
+        if (prev != null) return; // id already queued; the writer picks up the newest snapshot
+        if (!running) {
+            writeOnCaller(id);
+            return;
+        }
+
+        try {
+            queue.put(id);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeOnCaller(id);
+        }
+    }
+
+    /** Writes on the submitter when the writer cannot take the id; a failure is handed back to a running writer. */
+    private void writeOnCaller(String id) {
+        if (writeNow(id)) return;
+        if (running && queue.offer(id)) return;
+        Pending lost = pending.remove(id);
+        if (lost != null) {
+            Log.error("Dropping unsaved snapshot of game " + id + ": the game writer is not running.", null);
+        }
+    }
+
+    /** Writes {@code game} on the caller thread after dropping any older pending snapshot of it. */
+    void writeSync(Game game) throws IOException {
+        synchronized (stripeFor(game.getId())) {
+            pending.remove(game.getId());
+            repo.saveGame(game);
+        }
+    }
+
+    /** Waits until nothing is pending or being written; returns false on timeout. */
+    boolean flush(long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (!pending.isEmpty() || writing.get() > 0) {
+            if (System.nanoTime() > deadline) return false;
+            try {
+                Thread.sleep(5L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void run() {
+        while (!abandoned && (running || !queue.isEmpty() || !retries.isEmpty())) {
+            String id = queue.poll();
+            if (id == null) id = retries.poll();
+            if (id == null) {
+                try {
+                    id = queue.poll(200, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+            if (id == null || writeNow(id)) continue;
+            retries.add(id);
+            try {
+                Thread.sleep(RETRY_BACKOFF_MS);
+            } catch (InterruptedException ignored) {
+                // keep draining
+            }
+        }
+    }
+
+    /** Returns false if the write failed; the snapshot is then pending again unless a newer one took its place. */
+    private boolean writeNow(String id) {
+        writing.incrementAndGet(); // before the removal, so flush never sees an empty map mid-write
+        try {
+            synchronized (stripeFor(id)) {
+                Pending p = pending.remove(id);
+                if (p == null || write(p)) return true; // null: superseded by a synchronous write
+                pending.putIfAbsent(id, p);
+                return false;
+            }
+        } finally {
+            writing.decrementAndGet();
+        }
+    }
+
+    private boolean write(Pending p) {
+        try {
+            repo.saveGame(p.snapshot());
+            writes.incrementAndGet();
+            long lag = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - p.queuedAtNanos());
+            lastLagMs.set(lag);
+            maxLagMs.accumulateAndGet(lag, Math::max);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            writeErrors.incrementAndGet();
+            Log.warn("Async save failed for game " + p.snapshot().getId() + ", retrying.", e);
+            return false;
+        }
+    }
+
+    private Object stripeFor(String id) {
+        return stripes[Math.floorMod(id.hashCode(), STRIPES)];
+    }
+
+    void registerMetrics(ServerMetrics metrics) {
+        metrics.registerGauge("chess_persistence_queue_depth", "Games with a snapshot waiting to be written.",
+                pending::size);
+        metrics.registerCounter("chess_persistence_writes_total", "Async game snapshots written since start.",
+                writes::get);
+        metrics.registerCounter("chess_persistence_write_errors_total", "Async game writes that failed.",
+                writeErrors::get);
+        metrics.registerGauge("chess_persistence_lag_ms", "Queue-to-disk delay of the last async write (ms).",
+                lastLagMs::get);
+        metrics.registerGauge("chess_persistence_lag_max_ms", "Largest queue-to-disk delay since start (ms).",
+                maxLagMs::get);
+    }
+
+    /** Stops accepting work after draining what is queued, waiting up to {@code timeoutMs}. */
+    void close(long timeoutMs) {
+        running = false;
+        try {
+            writer.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        abandoned = true;
+        if (!pending.isEmpty()) {
+            Log.error("Game writer stopped with " + pending.size() + " unsaved snapshot(s): " + pending.keySet(), null);
+        }
+    }
+
+    @Override
+    public void close() {
+        close(10_000L);
+    }
+}
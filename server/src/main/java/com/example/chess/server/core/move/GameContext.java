@@ -12,6 +12,8 @@ final class GameContext {
     private volatile long whiteOfflineAtMs = 0L;
     private volatile long blackOfflineAtMs = 0L;
 
+    private volatile GameMailbox mailbox;
+
     GameContext(Game game, ClientHandler white, ClientHandler black) {
         this.game = game;
         this.white = white;
@@ -22,6 +24,17 @@ final class GameContext {
         return game;
     }
 
+    /** Queue that owns this game's state; set when the game becomes active. */
+    GameMailbox mailbox() {
+        GameMailbox m = mailbox;
+        if (m == null) throw new IllegalStateException("Game is not active: " + game.getId());
+        return m;
+    }
+
+    void attachMailbox(GameMailbox mailbox) {
+        if (this.mailbox == null) this.mailbox = mailbox;
+    }
+
     ClientHandler getWhiteHandler() {
         return white;
     }
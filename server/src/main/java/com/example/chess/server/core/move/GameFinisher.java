@@ -4,6 +4,7 @@ import com.example.chess.common.model.Game;
 import com.example.chess.common.model.Result;
 import com.example.chess.server.client.ClientHandler;
 import com.example.chess.server.core.ClockService;
+import com.example.chess.server.util.FlightEvents;
 import com.example.chess.server.util.Log;
 
 import java.io.IOException;
@@ -55,6 +56,18 @@ final class GameFinisher {
 
         cleanup(ctx);
 
+        FlightEvents.GameFinished event = new FlightEvents.GameFinished();
+        if (event.shouldCommit()) {
+            event.gameId = game.getId();
+            event.result = result.name();
+            event.reason = game.getResultReason();
+            event.rated = rated;
+            event.plies = game.getMoves() == null ? 0 : game.getMoves().size();
+            event.lengthMs = game.getCreatedAt() > 0 ? game.getLastUpdate() - game.getCreatedAt() : 0L;
+            event.persisted = persistOk;
+            event.commit();
+        }
+
         return gameOverNotification(game, white, black, statsOk, persistOk);
     }
 
@@ -0,0 +1,85 @@
+package com.example.chess.server.core.move;
+
+import com.example.chess.server.util.SerialExecutor;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Serialized command queue of one game. Every mutation of a game runs here, one at a time, on the
+ * single thread of the shard that owns the game, which replaces locking the {@link GameContext} monitor.
+ * A slow command stalls every game on that shard.
+ */
+final class GameMailbox {
+
+    /** A command that owns the game while it runs; the returned notification runs right after it. */
+    @FunctionalInterface
+    interface Command {
+        Runnable run() throws IOException;
+    }
+
+    private final SerialExecutor queue;
+    private volatile Thread owner;
+
+    GameMailbox(Executor workers) {
+        this.queue = new SerialExecutor(workers);
+    }
+
+    CompletableFuture<Void> submit(Command command) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        try {
+            queue.execute(() -> {
+                Runnable notify;
+                owner = Thread.currentThread();
+                try {
+                    notify = command.run();
+                } catch (Throwable e) {
+                    done.completeExceptionally(e);
+                    return;
+                } finally {
+                    owner = null;
+                }
+                try {
+                    if (notify != null) notify.run();
+                    done.complete(null);
+                } catch (Throwable e) {
+                    done.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            done.completeExceptionally(e);
+        }
+        return done;
+    }
+
+    /** True while the calling thread is running one of this game's commands. */
+    boolean isOwner() {
+        return owner == Thread.currentThread();
+    }
+
+    int queued() {
+        return queue.queued();
+    }
+
+    /** Waits for a command and rethrows its failure as the original exception type. */
+    static void await(CompletableFuture<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for game command.", e);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        } catch (CancellationException e) {
+            throw new IllegalStateException("Game command was cancelled.", e);
+        }
+    }
+}
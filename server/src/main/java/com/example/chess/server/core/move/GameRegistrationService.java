@@ -4,6 +4,7 @@ import com.example.chess.common.model.Game;
 import com.example.chess.common.model.Result;
 import com.example.chess.server.client.ClientHandler;
 import com.example.chess.server.core.ClockService;
+import com.example.chess.server.util.FlightEvents;
 import com.example.chess.server.util.Log;
 
 import java.io.IOException;
@@ -62,6 +63,16 @@ final class GameRegistrationService {
             throw e;
         }
 
+        FlightEvents.GameStarted event = new FlightEvents.GameStarted();
+        if (event.shouldCommit()) {
+            event.gameId = game.getId();
+            event.white = game.getWhiteUser();
+            event.black = game.getBlackUser();
+            event.baseMs = game.getTimeControlMs();
+            event.incrementMs = game.getIncrementMs();
+            event.commit();
+        }
+
         if (whiteH != null) whiteH.pushGameStarted(game, true);
         if (blackH != null) blackH.pushGameStarted(game, false);
     }
@@ -6,4 +6,9 @@ import java.io.IOException;
 
 interface GameStore {
     void save(Game g) throws IOException;
+
+    /** Persists a snapshot of {@code g} off the caller's critical path; stores without a writer save inline. */
+    default void saveAsync(Game g) throws IOException {
+        save(g);
+    }
 }
\ No newline at end of file
@@ -25,8 +25,10 @@ final class MoveFlow {
         this.finisher = finisher;
     }
 
-    Runnable makeMoveLocked(GameContext ctx, User u, String uci) throws IOException {
-        if (!Thread.holdsLock(ctx)) throw new IllegalStateException("Game context must be locked.");
+    /** Applies the move; {@code timing} gets a lap after each pipeline stage. */
+    Runnable makeMoveLocked(GameContext ctx, User u, String uci, MoveTimings.Sample timing) throws IOException {
+        timing.lap(MoveTimings.Stage.QUEUE);
+        if (!ctx.mailbox().isOwner()) throw new IllegalStateException("Game command must run on the game's mailbox.");
         if (!ctx.isParticipant(u.getUsername())) throw new IllegalArgumentException("You are not a participant in this game.");
         if (ctx.getGame().getResult() != Result.ONGOING) throw new IllegalArgumentException("Game is already finished.");
 
@@ -35,15 +37,18 @@ final class MoveFlow {
         if (ctx.getGame().isWhiteMove() != moverIsWhite) throw new IllegalArgumentException("Not your turn.");
 
         Move move = Move.parse(uci);
+        timing.lap(MoveTimings.Stage.PARSE);
 
         Board board = ctx.getGame().getBoard();
         if (!rules.isLegalMove(ctx.getGame(), board, move))
             throw new IllegalArgumentException("Illegal move.");
+        timing.lap(MoveTimings.Stage.VALIDATE);
 
-        Board test = board.copy();
+        Board test = rules.trialCopy(board);
         rules.applyMove(test, ctx.getGame(), move, false);
         if (rules.isKingInCheck(test, moverIsWhite))
             throw new IllegalArgumentException("Illegal move: your king would be in check.");
+        timing.lap(MoveTimings.Stage.SELF_CHECK);
 
         rules.applyMove(board, ctx.getGame(), move, true);
 
@@ -61,6 +66,8 @@ final class MoveFlow {
             }
         }
 
+        timing.lap(MoveTimings.Stage.APPLY);
+
         boolean wChk = rules.isKingInCheck(board, true);
         boolean bChk = rules.isKingInCheck(board, false);
 
@@ -74,16 +81,18 @@ final class MoveFlow {
         boolean whiteToMove = ctx.getGame().isWhiteMove();
         boolean inCheck = rules.isKingInCheck(board, whiteToMove);
         boolean anyLegal = rules.hasAnyLegalMove(ctx.getGame(), board, whiteToMove);
+        timing.lap(MoveTimings.Stage.MATE_DETECTION);
 
         if (!anyLegal) {
-            if (inCheck) {
-                return finisher.finishLocked(ctx, whiteToMove ? Result.BLACK_WIN : Result.WHITE_WIN, "Checkmate.");
-            } else {
-                return finisher.finishLocked(ctx, Result.DRAW, "Stalemate.");
-            }
+            Runnable notify = inCheck
+                    ? finisher.finishLocked(ctx, whiteToMove ? Result.BLACK_WIN : Result.WHITE_WIN, "Checkmate.")
+                    : finisher.finishLocked(ctx, Result.DRAW, "Stalemate.");
+            timing.lap(MoveTimings.Stage.PERSIST);
+            return notify;
         }
 
-        store.save(ctx.getGame());
+        store.saveAsync(ctx.getGame());
+        timing.lap(MoveTimings.Stage.PERSIST);
 
         ClientHandler white = ctx.getWhiteHandler();
         ClientHandler black = ctx.getBlackHandler();
@@ -6,15 +6,23 @@ import com.example.chess.server.client.ClientHandler;
 import com.example.chess.server.core.ClockService;
 import com.example.chess.server.core.ReconnectService;
 import com.example.chess.server.fs.repository.GameRepository;
+import com.example.chess.server.logic.RulesCounters;
 import com.example.chess.server.logic.RulesEngine;
+import com.example.chess.server.util.TimerService;
 
 import java.io.IOException;
-import java.util.concurrent.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MoveService implements AutoCloseable {
 
-    private final ActiveGames games = new ActiveGames();
+    private static final String PROP_SHARDS = "chess.games.shards";
+    private static final String PROP_PERSIST_QUEUE = "chess.games.persistQueue";
+    private static final String PROP_MOVE_TIMING_SAMPLE = "chess.metrics.moveStages.sampleEvery";
+    private static final long LAG_PROBE_MS = 1_000L;
+
+    private final ActiveGames games;
+    private final AsyncGameWriter writer;
 
     private final ClockService clocks;
 
@@ -22,57 +30,93 @@ public class MoveService implements AutoCloseable {
     private final GameFinisher finisher;
 
     private final GameRegistrationService registration;
+    private final RulesEngine rules;
     private final MoveFlow moves;
+    private final MoveTimings moveTimings = new MoveTimings(Integer.getInteger(PROP_MOVE_TIMING_SAMPLE, 16));
     private final DrawFlow draws;
     private final ReconnectFlow reconnectFlow;
 
-    private final ScheduledExecutorService tickExec;
+    private static final long NOT_READY_RETRY_MS = 200L;
+
+    private final TimerService timers;
+    private final boolean ownsTimers;
+    private final ReconnectService reconnects;
+    private final TimerService.Repeating lagProbe;
 
     private final AtomicBoolean ready = new AtomicBoolean(false);
 
+    /** Uses a private timer service that is closed with this service. */
     public MoveService(GameRepository gameRepo, ClockService clocks, GameEndHook endHook) {
+        this(gameRepo, clocks, endHook, new TimerService(), true);
+    }
+
+    /** Schedules clock flags, reconnect grace periods and shard probes on the shared {@code timers}. */
+    public MoveService(GameRepository gameRepo, ClockService clocks, GameEndHook endHook, TimerService timers) {
+        this(gameRepo, clocks, endHook, timers, false);
+    }
+
+    private MoveService(GameRepository gameRepo, ClockService clocks, GameEndHook endHook,
+                        TimerService timers, boolean ownsTimers) {
+        this.timers = timers;
+        this.ownsTimers = ownsTimers;
+        this.games = new ActiveGames(Math.max(1,
+                Integer.getInteger(PROP_SHARDS, Runtime.getRuntime().availableProcessors())));
         this.clocks = clocks;
-        this.store = new RepositoryGameStore(gameRepo);
+        this.writer = gameRepo == null ? null
+                : new AsyncGameWriter(gameRepo, Integer.getInteger(PROP_PERSIST_QUEUE, 65_536));
+        this.store = new RepositoryGameStore(gameRepo, clocks, writer);
         this.finisher = new GameFinisher(store, clocks, games, endHook);
 
         this.registration = new GameRegistrationService(games, clocks, store);
-        RulesEngine rules = new RulesEngine();
+        this.rules = new RulesEngine(RulesCounters.fromSystemProperties());
         this.moves = new MoveFlow(rules, clocks, store, finisher);
         this.draws = new DrawFlow(store, finisher);
-        ReconnectService reconnects = new ReconnectService(60_000L);
+        this.reconnects = new ReconnectService(60_000L, timers);
         this.reconnectFlow = new ReconnectFlow(games, reconnects, finisher, store);
 
-        this.tickExec = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, "clock-ticker");
-            t.setDaemon(true);
-            return t;
-        });
-        tickExec.scheduleAtFixedRate(this::tickAllGames, 200, 200, TimeUnit.MILLISECONDS);
+        clocks.attachFlagScheduler(timers, this::onFlagDue);
+        this.lagProbe = timers.scheduleWithFixedDelay(games::probeLag, LAG_PROBE_MS, LAG_PROBE_MS, false);
     }
 
-    private void tickAllGames() {
-        if (!ready.get()) return;
+    /** Exposes per-shard games, queue depth and lag, persistence queue and lag, and pending grace timers. */
+    public void registerMetrics(com.example.chess.server.util.ServerMetrics metrics) {
+        games.registerMetrics(metrics);
+        moveTimings.registerMetrics(metrics);
+        rules.counters().registerMetrics(metrics);
+        metrics.registerGauge("chess_reconnect_pending", "Disconnected players inside their reconnect grace period.",
+                reconnects::pendingCount);
+        if (writer != null) writer.registerMetrics(metrics);
+    }
 
-        for (GameContext ctx : games.snapshot()) {
-            Runnable notify = null;
-            try {
-                synchronized (ctx) {
-                    if (ctx.getGame().getResult() == com.example.chess.common.model.Result.ONGOING) {
-                        boolean timeout = clocks.tick(ctx.getGame());
-                        if (timeout) {
-                            if (ctx.getGame().getWhiteTimeMs() <= 0) {
-                                notify = finisher.finishLocked(ctx, com.example.chess.common.model.Result.BLACK_WIN, "timeout.");
-                            } else if (ctx.getGame().getBlackTimeMs() <= 0) {
-                                notify = finisher.finishLocked(ctx, com.example.chess.common.model.Result.WHITE_WIN, "timeout.");
-                            }
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                com.example.chess.server.util.Log.warn("tickAllGames failed ", e);
-            }
-            if (notify != null) notify.run();
+    /** Waits until queued game snapshots are on disk; returns false on timeout. */
+    public boolean flushPersistence(long timeoutMs) {
+        return writer == null || writer.flush(timeoutMs);
+    }
+
+    /** Runs when the side to move may have run out of time; a stale or early deadline just re-arms. */
+    private void onFlagDue(String gameId) {
+        if (!ready.get()) {
+            timers.schedule(() -> onFlagDue(gameId), NOT_READY_RETRY_MS);
+            return;
         }
+        GameContext ctx = games.ctx(gameId);
+        if (ctx == null) return;
+
+        ctx.mailbox().submit(() -> {
+            Game g = ctx.getGame();
+            if (g.getResult() != com.example.chess.common.model.Result.ONGOING) return null;
+            if (!clocks.sync(g)) {
+                clocks.rearm(gameId);
+                return null;
+            }
+            if (g.getWhiteTimeMs() <= 0) {
+                return finisher.finishLocked(ctx, com.example.chess.common.model.Result.BLACK_WIN, "timeout.");
+            }
+            return finisher.finishLocked(ctx, com.example.chess.common.model.Result.WHITE_WIN, "timeout.");
+        }).exceptionally(e -> {
+            com.example.chess.server.util.Log.warn("Flag check failed for game " + gameId, e);
+            return null;
+        });
     }
 
     public void registerGame(Game g,
@@ -86,54 +130,75 @@ public class MoveService implements AutoCloseable {
     }
 
     public void makeMove(String gameId, User u, String uci) throws IOException {
-        requireUser(u);
-        GameContext ctx = games.mustCtx(gameId);
-
-        Runnable notify;
-        synchronized (ctx) {
-            notify = moves.makeMoveLocked(ctx, u, uci);
-        }
-        if (notify != null) notify.run();
+        GameMailbox.await(makeMoveAsync(gameId, u, uci));
     }
 
     public void offerDraw(String gameId, User u) throws IOException {
-        requireUser(u);
-        GameContext ctx = games.mustCtx(gameId);
-
-        Runnable notify;
-        synchronized (ctx) {
-            notify = draws.offerDrawLocked(ctx, u);
-        }
-        if (notify != null) notify.run();
+        GameMailbox.await(offerDrawAsync(gameId, u));
     }
 
     public void respondDraw(String gameId, User u, boolean accept) throws IOException {
-        requireUser(u);
-        GameContext ctx = games.mustCtx(gameId);
-
-        Runnable notify;
-        synchronized (ctx) {
-            notify = draws.respondDrawLocked(ctx, u, accept);
-        }
-        if (notify != null) notify.run();
+        GameMailbox.await(respondDrawAsync(gameId, u, accept));
     }
 
     public void resign(String gameId, User u) throws IOException {
-        requireUser(u);
-        GameContext ctx = games.mustCtx(gameId);
+        GameMailbox.await(resignAsync(gameId, u));
+    }
+
+    /** Queues the move on the game's mailbox; the future completes once it is applied and pushed. */
+    public CompletableFuture<Void> makeMoveAsync(String gameId, User u, String uci) {
+        MoveTimings.Sample timing = moveTimings.begin();
+        return submit(gameId, u, ctx -> {
+            Runnable notify;
+            try {
+                notify = moves.makeMoveLocked(ctx, u, uci, timing);
+            } catch (IOException | RuntimeException e) {
+                timing.finish(gameId, uci, e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+                throw e;
+            }
+            if (timing == MoveTimings.NONE) return notify;
+            return () -> {
+                if (notify != null) notify.run();
+                timing.lap(MoveTimings.Stage.PUSH);
+                timing.finish(gameId, uci, null);
+            };
+        });
+    }
 
-        Runnable notify;
-        synchronized (ctx) {
+    public CompletableFuture<Void> offerDrawAsync(String gameId, User u) {
+        return submit(gameId, u, ctx -> draws.offerDrawLocked(ctx, u));
+    }
+
+    public CompletableFuture<Void> respondDrawAsync(String gameId, User u, boolean accept) {
+        return submit(gameId, u, ctx -> draws.respondDrawLocked(ctx, u, accept));
+    }
+
+    public CompletableFuture<Void> resignAsync(String gameId, User u) {
+        return submit(gameId, u, ctx -> {
             if (!ctx.isParticipant(u.getUsername())) throw new IllegalArgumentException("You are not a participant in this game.");
             if (ctx.getGame().getResult() != com.example.chess.common.model.Result.ONGOING)
                 throw new IllegalArgumentException("Game is already finished.");
 
             boolean leaverWhite = ctx.isWhiteUser(u.getUsername());
-            notify = finisher.finishLocked(ctx,
+            return finisher.finishLocked(ctx,
                     leaverWhite ? com.example.chess.common.model.Result.BLACK_WIN : com.example.chess.common.model.Result.WHITE_WIN,
                     "Resignation.");
+        });
+    }
+
+    private interface GameCommand {
+        Runnable run(GameContext ctx) throws IOException;
+    }
+
+    private CompletableFuture<Void> submit(String gameId, User u, GameCommand command) {
+        GameContext ctx;
+        try {
+            requireUser(u);
+            ctx = games.mustCtx(gameId);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
         }
-        if (notify != null) notify.run();
+        return ctx.mailbox().submit(() -> command.run(ctx));
     }
 
     public void onDisconnect(User u) {
@@ -173,7 +238,11 @@ public class MoveService implements AutoCloseable {
 
     @Override
     public void close() {
-        tickExec.shutdownNow();
+        lagProbe.cancel();
+        reconnects.close();
+        if (ownsTimers) timers.close();
+        games.close();
+        if (writer != null) writer.close();
     }
 
     public int activeGameCount() {
@@ -0,0 +1,93 @@
+package com.example.chess.server.core.move;
+
+import com.example.chess.server.util.FlightEvents;
+import com.example.chess.server.util.LatencyHistogram;
+import com.example.chess.server.util.ServerMetrics;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sampled per-stage timing of the move pipeline. One move in {@code sampleEvery} gets a live
+ * {@link Sample}; the others get a no-op one, so unsampled moves never read the clock. While a JFR
+ * recording has {@link FlightEvents.MoveProcessed} on, every move is timed for its event instead.
+ */
+final class MoveTimings {
+
+    enum Stage { QUEUE, PARSE, VALIDATE, SELF_CHECK, APPLY, MATE_DETECTION, PERSIST, PUSH }
+
+    static final Sample NONE = new Sample(null, null, 0L);
+
+    private final int sampleEvery;
+    private final AtomicLong seq = new AtomicLong();
+    private final LatencyHistogram[] byStage = new LatencyHistogram[Stage.values().length];
+
+    /** {@code sampleEvery} of 0 or less turns sampling off. */
+    MoveTimings(int sampleEvery) {
+        this.sampleEvery = sampleEvery;
+        for (int i = 0; i < byStage.length; i++) byStage[i] = new LatencyHistogram();
+    }
+
+    Sample begin() {
+        boolean sampled = sampleEvery > 0 && seq.getAndIncrement() % sampleEvery == 0;
+        FlightEvents.MoveProcessed event = FlightEvents.MoveProcessed.enabled() ? new FlightEvents.MoveProcessed() : null;
+        if (!sampled && event == null) return NONE;
+        if (event != null) event.begin();
+        return new Sample(sampled ? this : null, event, System.nanoTime());
+    }
+
+    void registerMetrics(ServerMetrics metrics) {
+        for (Stage s : Stage.values()) {
+            metrics.registerHistogram("chess_move_stage_seconds", "Sampled time spent in each makeMove stage.",
+                    "stage", s.name().toLowerCase(Locale.ROOT), byStage[s.ordinal()]);
+        }
+    }
+
+    /** Lap timer of one move; each {@link #lap} records the time since the previous lap. */
+    static final class Sample {
+        private final MoveTimings owner; // null: not sampled for the histograms
+        private final FlightEvents.MoveProcessed event; // null: no recording wants it
+        private long last;
+
+        private Sample(MoveTimings owner, FlightEvents.MoveProcessed event, long startNanos) {
+            this.owner = owner;
+            this.event = event;
+            this.last = startNanos;
+        }
+
+        void lap(Stage stage) {
+            if (owner == null && event == null) return;
+            long now = System.nanoTime();
+            long nanos = now - last;
+            last = now;
+            if (owner != null) owner.byStage[stage.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(nanos));
+            if (event != null) addToEvent(stage, nanos);
+        }
+
+        /** Ends the move's JFR event, if any; {@code rejection} is null for an applied move. */
+        void finish(String gameId, String move, String rejection) {
+            if (event == null) return;
+            event.end();
+            if (!event.shouldCommit()) return;
+            event.gameId = gameId;
+            event.move = move;
+            event.legal = rejection == null;
+            event.rejection = rejection;
+            event.commit();
+        }
+
+        private void addToEvent(Stage stage, long nanos) {
+            switch (stage) {
+                case QUEUE -> event.queueNanos += nanos;
+                case PARSE -> event.parseNanos += nanos;
+                case VALIDATE -> event.validateNanos += nanos;
+                case SELF_CHECK -> event.selfCheckNanos += nanos;
+                case APPLY -> event.applyNanos += nanos;
+                case MATE_DETECTION -> event.mateDetectionNanos += nanos;
+                case PERSIST -> event.persistNanos += nanos;
+                case PUSH -> event.pushNanos += nanos;
+            }
+        }
+    }
+}
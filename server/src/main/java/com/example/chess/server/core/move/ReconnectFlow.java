@@ -7,6 +7,9 @@ import com.example.chess.server.client.ClientHandler;
 import com.example.chess.server.core.ReconnectService;
 import com.example.chess.server.util.Log;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 final class ReconnectFlow {
     private final ActiveGames games;
     private final ReconnectService reconnects;
@@ -25,39 +28,42 @@ final class ReconnectFlow {
         GameContext ctx = games.findCtxByUser(u.getUsername());
         if (ctx == null) return;
 
-        ClientHandler opp = ctx.opponentHandlerOf(u.getUsername());
-        String oppMsg = null;
-
-        synchronized (ctx) {
-            if (ctx.getGame().getResult() != Result.ONGOING) {
-                games.remove(ctx);
-                return;
-            }
-
-            boolean isWhite = ctx.isWhiteUser(u.getUsername());
-            long now = System.currentTimeMillis();
+        try {
+            GameMailbox.await(ctx.mailbox().submit(() -> onDisconnectLocked(ctx, u)));
+        } catch (IOException e) {
+            Log.warn("Disconnect handling failed for game: " + ctx.getGame().getId(), e);
+        }
+    }
 
-            if (isWhite) {
-                ctx.setWhiteOfflineAtMs(now);
-                ctx.getGame().setWhiteOfflineSince(now);
-            } else {
-                ctx.setBlackOfflineAtMs(now);
-                ctx.getGame().setBlackOfflineSince(now);
-            }
+    private Runnable onDisconnectLocked(GameContext ctx, User u) {
+        if (ctx.getGame().getResult() != Result.ONGOING) {
+            games.remove(ctx);
+            return null;
+        }
 
-            try {
-                store.save(ctx.getGame());
-            } catch (Exception ex) {
-                Log.warn("Failed to persist disconnect markers for game: " + ctx.getGame().getId(), ex);
-            }
+        boolean isWhite = ctx.isWhiteUser(u.getUsername());
+        long now = System.currentTimeMillis();
 
-            if (opp != null)
-                oppMsg = u.getUsername() + " disconnected. Waiting " + (reconnects.getGraceMs() / 1000);
+        if (isWhite) {
+            ctx.setWhiteOfflineAtMs(now);
+            ctx.getGame().setWhiteOfflineSince(now);
+        } else {
+            ctx.setBlackOfflineAtMs(now);
+            ctx.getGame().setBlackOfflineSince(now);
+        }
 
-            scheduleDropTask(ctx, u.getUsername(), isWhite, reconnects.getGraceMs());
+        try {
+            store.saveAsync(ctx.getGame());
+        } catch (Exception ex) {
+            Log.warn("Failed to persist disconnect markers for game: " + ctx.getGame().getId(), ex);
         }
 
-        if(opp != null) opp.sendInfo(oppMsg);
+        scheduleDropTask(ctx, u.getUsername(), isWhite, reconnects.getGraceMs());
+
+        ClientHandler opp = ctx.opponentHandlerOf(u.getUsername());
+        if (opp == null) return null;
+        String oppMsg = u.getUsername() + " disconnected. Waiting " + (reconnects.getGraceMs() / 1000);
+        return () -> opp.sendInfo(oppMsg);
     }
 
     void tryReconnect(User u, ClientHandler newHandler) {
@@ -68,58 +74,53 @@ final class ReconnectFlow {
         GameContext ctx = games.findCtxByUser(u.getUsername());
         if (ctx == null) throw new IllegalArgumentException("Missing game context for user.");
 
-        boolean isWhite = true;
-        boolean pushGameOver = false;
-        boolean persistOk = true;
-        Game gameToPush;
-
-        ClientHandler opp = null;
-        String oppMsg = null;
-
-        synchronized (ctx) {
-            if (ctx.getGame().getResult() != Result.ONGOING) {
-                gameToPush = ctx.getGame();
-                pushGameOver = true;
-                games.remove(ctx);
-            } else {
-                isWhite = ctx.isWhiteUser(u.getUsername());
-
-                reconnects.cancel(key(ctx.getGame().getId(), u.getUsername()));
-
-                if (isWhite) {
-                    ctx.setWhiteHandler(newHandler);
-                    ctx.setWhiteOfflineAtMs(0L);
-                    ctx.getGame().setWhiteOfflineSince(0L);
-                } else {
-                    ctx.setBlackHandler(newHandler);
-                    ctx.setBlackOfflineAtMs(0L);
-                    ctx.getGame().setBlackOfflineSince(0L);
-                }
-
-                try {
-                    store.save(ctx.getGame());
-                } catch (Exception ex) {
-                    persistOk = false;
-                    Log.warn("Failed to persist reconnect markers for game " + ctx.getGame().getId(), ex);
-                }
-
-                gameToPush = ctx.getGame();
-
-                opp = ctx.opponentHandlerOf(u.getUsername());
-                if (opp != null) oppMsg = u.getUsername() + " reconnected.";
-            }
+        try {
+            GameMailbox.await(ctx.mailbox().submit(() -> tryReconnectLocked(ctx, u, newHandler)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        if(pushGameOver) {
-            newHandler.pushGameOver(gameToPush, true, true);
-            return;
+    private Runnable tryReconnectLocked(GameContext ctx, User u, ClientHandler newHandler) {
+        Game game = ctx.getGame();
+        if (game.getResult() != Result.ONGOING) {
+            games.remove(ctx);
+            return () -> newHandler.pushGameOver(game, true, true);
         }
 
-        newHandler.pushGameStarted(ctx.getGame(), isWhite);
-        if (!persistOk) {
-            newHandler.sendInfo("Warning: reconnect state could not be persisted.");
+        boolean isWhite = ctx.isWhiteUser(u.getUsername());
+
+        reconnects.cancel(key(game.getId(), u.getUsername()));
+
+        if (isWhite) {
+            ctx.setWhiteHandler(newHandler);
+            ctx.setWhiteOfflineAtMs(0L);
+            game.setWhiteOfflineSince(0L);
+        } else {
+            ctx.setBlackHandler(newHandler);
+            ctx.setBlackOfflineAtMs(0L);
+            game.setBlackOfflineSince(0L);
         }
-        if (opp != null) opp.sendInfo(oppMsg);
+
+        boolean persisted = true;
+        try {
+            store.save(game);
+        } catch (Exception ex) {
+            persisted = false;
+            Log.warn("Failed to persist reconnect markers for game " + game.getId(), ex);
+        }
+        boolean persistOk = persisted;
+
+        ClientHandler opp = ctx.opponentHandlerOf(u.getUsername());
+        String oppMsg = u.getUsername() + " reconnected.";
+
+        return () -> {
+            newHandler.pushGameStarted(game, isWhite);
+            if (!persistOk) {
+                newHandler.sendInfo("Warning: reconnect state could not be persisted.");
+            }
+            if (opp != null) opp.sendInfo(oppMsg);
+        };
     }
 
     void recoverAfterRestart(GameContext ctx) {
@@ -151,38 +152,32 @@ final class ReconnectFlow {
     private void scheduleDropTask(GameContext ctx, String username, boolean isWhite, long delayMs) {
         String k = key(ctx.getGame().getId(), username);
 
-        reconnects.scheduleDrop(k, () -> {
-            Runnable notify = null;
-            try {
-                synchronized (ctx) {
-                    if (ctx.getGame().getResult() != Result.ONGOING) return;
-
-                    long off = isWhite ? ctx.getWhiteOfflineAtMs() : ctx.getBlackOfflineAtMs();
-                    if (off == 0L) return;
-
-                    boolean noMoves = !ctx.getGame().hasAnyMoves();
-                    boolean bothOffline = (ctx.getWhiteOfflineAtMs() != 0L) && (ctx.getBlackOfflineAtMs() != 0L);
-
-                    if (noMoves || bothOffline) {
-                        notify = finisher.finishLocked(
-                                ctx,
-                                Result.ABORTED,
-                                bothOffline ? "Aborted (both disconnected)." : "Aborted (no moves).",
-                                false
-                        );
-                    } else {
-                        notify = finisher.finishLocked(
-                                ctx,
-                                isWhite ? Result.BLACK_WIN : Result.WHITE_WIN,
-                                "Disconnected for more than 60 seconds."
-                        );
-                    }
-                }
-            } catch (Exception e) {
-                Log.warn("Reconnect drop task failed for game " + ctx.getGame().getId(), e);
+        reconnects.scheduleDrop(k, () -> ctx.mailbox().submit(() -> {
+            if (ctx.getGame().getResult() != Result.ONGOING) return null;
+
+            long off = isWhite ? ctx.getWhiteOfflineAtMs() : ctx.getBlackOfflineAtMs();
+            if (off == 0L) return null;
+
+            boolean noMoves = !ctx.getGame().hasAnyMoves();
+            boolean bothOffline = (ctx.getWhiteOfflineAtMs() != 0L) && (ctx.getBlackOfflineAtMs() != 0L);
+
+            if (noMoves || bothOffline) {
+                return finisher.finishLocked(
+                        ctx,
+                        Result.ABORTED,
+                        bothOffline ? "Aborted (both disconnected)." : "Aborted (no moves).",
+                        false
+                );
             }
-            if (notify != null) notify.run();
-        }, delayMs);
+            return finisher.finishLocked(
+                    ctx,
+                    isWhite ? Result.BLACK_WIN : Result.WHITE_WIN,
+                    "Disconnected for more than 60 seconds."
+            );
+        }).exceptionally(e -> {
+            Log.warn("Reconnect drop task failed for game " + ctx.getGame().getId(), e);
+            return null;
+        }), delayMs);
     }
 
     private static String key(String gameId, String username) {
@@ -1,6 +1,7 @@
 package com.example.chess.server.core.move;
 
 import com.example.chess.common.model.Game;
+import com.example.chess.server.core.ClockService;
 import com.example.chess.server.fs.repository.GameRepository;
 
 import java.io.IOException;
@@ -8,13 +9,30 @@ import java.io.IOException;
 final class RepositoryGameStore implements GameStore {
 
     private final GameRepository repo;
+    private final ClockService clocks;
+    private final AsyncGameWriter writer;
 
-    RepositoryGameStore(GameRepository repo) {
+    /** Clocks are read lazily, so the running times are copied into the game right before each write. */
+    RepositoryGameStore(GameRepository repo, ClockService clocks, AsyncGameWriter writer) {
         this.repo = repo;
+        this.clocks = clocks;
+        this.writer = writer;
     }
 
     @Override
     public void save(Game g) throws IOException {
-        if (repo != null) repo.saveGame(g);
+        if (clocks != null) clocks.sync(g);
+        if (writer != null) writer.writeSync(g);
+        else if (repo != null) repo.saveGame(g);
+    }
+
+    @Override
+    public void saveAsync(Game g) throws IOException {
+        if (writer == null) {
+            save(g);
+            return;
+        }
+        if (clocks != null) clocks.sync(g);
+        writer.submit(g.copy());
     }
 }
\ No newline at end of file
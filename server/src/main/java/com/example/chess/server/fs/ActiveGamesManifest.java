@@ -0,0 +1,190 @@
+package com.example.chess.server.fs;
+
+import com.example.chess.server.util.Log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Ids of games that may still be ongoing, kept as an append-only log in {@code active-games.log}
+ * with one {@code +id} or {@code -id} line per change.
+ * Ids are added before an ongoing game is first written and removed only after it is stored as finished,
+ * so the manifest is always a superset of the ongoing games on disk. Only adds are forced to disk: a lost
+ * removal leaves a stale id, which recovery drops. The log is rewritten as the live set once removed
+ * lines outnumber live ids.
+ */
+final class ActiveGamesManifest implements AutoCloseable {
+    static final int MIN_COMPACT_LINES = 1024;
+
+    private final Path file;
+    private final Object mutex = new Object();
+    private Set<String> ids;
+    private FileChannel log;
+    private long lines;
+
+    ActiveGamesManifest(Path file) {
+        this.file = file;
+    }
+
+    /** Returns the persisted ids, or {@code null} when there is no usable manifest yet. */
+    Set<String> read() {
+        synchronized (mutex) {
+            Set<String> loaded = load();
+            return loaded == null ? null : Set.copyOf(loaded);
+        }
+    }
+
+    void add(String id) throws IOException {
+        checkId(id);
+        synchronized (mutex) {
+            Set<String> current = current();
+            if (!current.add(id)) return;
+            try {
+                append('+', id, true);
+            } catch (IOException e) {
+                current.remove(id);
+                throw e;
+            }
+        }
+    }
+
+    void remove(String id) throws IOException {
+        checkId(id);
+        synchronized (mutex) {
+            Set<String> current = current();
+            if (!current.remove(id)) return;
+            try {
+                append('-', id, false);
+            } catch (IOException e) {
+                current.add(id);
+                throw e;
+            }
+            if (lines >= MIN_COMPACT_LINES && lines > 2L * current.size()) {
+                try {
+                    rewrite(current);
+                } catch (IOException e) {
+                    Log.warn("Failed to compact active games manifest: " + file, e);
+                }
+            }
+        }
+    }
+
+    void replace(Collection<String> activeIds) throws IOException {
+        synchronized (mutex) {
+            rewrite(new LinkedHashSet<>(activeIds));
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (mutex) {
+            closeLog();
+        }
+    }
+
+    private static void checkId(String id) {
+        if (id == null || id.isEmpty() || id.indexOf('\n') >= 0 || id.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Invalid game id for active manifest: " + id);
+        }
+    }
+
+    private Set<String> current() throws IOException {
+        Set<String> loaded = load();
+        if (loaded == null) {
+            rewrite(new LinkedHashSet<>());
+        }
+        return ids;
+    }
+
+    private Set<String> load() {
+        if (ids != null) return ids;
+        if (!Files.exists(file)) return null;
+        try {
+            Set<String> parsed = new LinkedHashSet<>();
+            long n = 0;
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                for (String line = in.readLine(); line != null; line = in.readLine(), n++) {
+                    if (line.length() < 2) continue; // torn "+" or "-" from a crash
+                    switch (line.charAt(0)) {
+                        case '+' -> parsed.add(line.substring(1));
+                        case '-' -> parsed.remove(line.substring(1));
+                        default -> throw new IOException("Malformed manifest line " + (n + 1));
+                    }
+                }
+            }
+            ids = parsed;
+            lines = n;
+            return ids;
+        } catch (IOException | RuntimeException e) {
+            FileStoreIO.quarantineFile(file, "active games manifest");
+            Log.warn("Failed to read active games manifest: " + file, e);
+            return null;
+        }
+    }
+
+    private void append(char op, String id, boolean force) throws IOException {
+        try {
+            FileChannel ch = log();
+            ByteBuffer line = ByteBuffer.wrap((op + id + "\n").getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) ch.write(line);
+            if (force) ch.force(false);
+            lines++;
+        } catch (IOException e) {
+            closeLog();
+            throw e;
+        }
+    }
+
+    private FileChannel log() throws IOException {
+        if (log != null) return log;
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            long size = ch.size();
+            if (size > 0 && !endsWithNewline(size)) {
+                // A torn last line from a crash; start ours on a fresh line.
+                ch.write(ByteBuffer.wrap(new byte[] {'\n'}));
+            }
+        } catch (IOException e) {
+            ch.close();
+            throw e;
+        }
+        log = ch;
+        return ch;
+    }
+
+    private boolean endsWithNewline(long size) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            in.read(last, size - 1);
+            return last.get(0) == '\n';
+        }
+    }
+
+    private void rewrite(Set<String> next) throws IOException {
+        closeLog();
+        StringBuilder sb = new StringBuilder(next.size() * 40);
+        for (String id : next) sb.append('+').append(id).append('\n');
+        FileStoreIO.writeAtomically(file, sb.toString());
+        ids = next;
+        lines = next.size();
+    }
+
+    private void closeLog() {
+        if (log == null) return;
+        try {
+            log.close();
+        } catch (IOException e) {
+            Log.warn("Failed to close active games manifest: " + file, e);
+        }
+        log = null;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.chess.server.fs;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Exclusive OS lock on {@code <dataDir>/.server.lock}, held until the JVM exits.
+ * Guards the in-process locking mode, which is only safe while a single process uses the directory.
+ */
+final class DataDirLock {
+    private static final ConcurrentMap<Path, DataDirLock> HELD = new ConcurrentHashMap<>();
+
+    // Kept reachable so the lock lives as long as the process.
+    private final FileChannel channel;
+    private final FileLock lock;
+
+    private DataDirLock(FileChannel channel, FileLock lock) {
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    /**
+     * Takes the lock for {@code root}, or returns the one this JVM already holds.
+     *
+     * @throws IllegalStateException if another process holds the directory
+     */
+    static DataDirLock acquire(Path root) {
+        Path key = root.toAbsolutePath().normalize();
+        return HELD.computeIfAbsent(key, DataDirLock::open);
+    }
+
+    private static DataDirLock open(Path root) {
+        Path file = root.resolve(".server.lock");
+        FileChannel ch = null;
+        try {
+            Files.createDirectories(root);
+            ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = ch.tryLock();
+            if (lock == null) {
+                throw new IllegalStateException("Data directory is in use by another process: " + root);
+            }
+            return new DataDirLock(ch, lock);
+        } catch (OverlappingFileLockException e) {
+            closeQuietly(ch);
+            throw new IllegalStateException("Data directory is already locked: " + root, e);
+        } catch (IOException e) {
+            closeQuietly(ch);
+            throw new IllegalStateException("Failed to lock data directory: " + root, e);
+        } catch (RuntimeException e) {
+            closeQuietly(ch);
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(FileChannel ch) {
+        if (ch == null) return;
+        try {
+            ch.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
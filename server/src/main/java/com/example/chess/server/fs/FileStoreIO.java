@@ -1,5 +1,6 @@
 package com.example.chess.server.fs;
 
+import com.example.chess.server.util.FlightEvents;
 import com.example.chess.server.util.Log;
 
 import java.io.IOException;
@@ -41,6 +42,9 @@ final class FileStoreIO {
         if (dir != null) Files.createDirectories(dir);
         Path tmpDir = dir != null ? dir : Path.of(".");
 
+        FlightEvents.PersistenceWrite event = new FlightEvents.PersistenceWrite();
+        event.begin();
+        long fsyncNanos = 0L;
         Path tmp = Files.createTempFile(tmpDir, target.getFileName().toString(), ".tmp");
         boolean moved = false;
         try {
@@ -53,7 +57,9 @@ final class FileStoreIO {
                 while (buffer.hasRemaining()) {
                     channel.write(buffer);
                 }
+                long fsyncStart = System.nanoTime();
                 channel.force(true);
+                fsyncNanos = System.nanoTime() - fsyncStart;
             }
             try {
                 Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
@@ -61,7 +67,17 @@ final class FileStoreIO {
                 Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
             }
             moved = true;
+            long dirFsyncStart = System.nanoTime();
             forceDirectory(tmpDir);
+            fsyncNanos += System.nanoTime() - dirFsyncStart;
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = target.toString();
+                event.bytes = bytes.length;
+                event.fsyncNanos = fsyncNanos;
+                event.commit();
+            }
         } finally {
             if (!moved) {
                 try {
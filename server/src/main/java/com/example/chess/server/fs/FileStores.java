@@ -2,24 +2,62 @@ package com.example.chess.server.fs;
 
 import com.example.chess.common.UserModels.User;
 import com.example.chess.common.model.Game;
+import com.example.chess.common.model.Result;
 import com.example.chess.server.fs.repository.GameRepository;
+import com.example.chess.server.util.Log;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
-public class FileStores implements GameRepository {
+public class FileStores implements GameRepository, AutoCloseable {
+    private static final String PROP_ARCHIVE_ENABLED = "chess.games.archive.enabled";
+    private static final String PROP_ARCHIVE_SEGMENT_BYTES = "chess.games.archive.segmentBytes";
+    private static final String PROP_ARCHIVE_MMAP = "chess.games.archive.mmap";
+    private static final String PROP_READER_THREADS = "chess.games.readerThreads";
+    private static final String PROP_LOCK_MODE = "chess.games.lockMode";
 
     private final UserFileStore userStore;
     private final GameFileStore gameStore;
+    private final ActiveGamesManifest activeGames;
+    private final int readerThreads;
+    private final Object manifestInit = new Object();
+    private volatile boolean manifestReady;
 
     public FileStores(Path root) {
         if (root == null) throw new IllegalArgumentException("Missing data directory.");
         this.userStore = new UserFileStore(root);
-        this.gameStore = new GameFileStore(root.resolve("games"), () -> userStore.loadAllUsers().keySet());
+
+        boolean archiveEnabled = Boolean.parseBoolean(System.getProperty(PROP_ARCHIVE_ENABLED, "true"));
+        GameArchive archive = archiveEnabled
+                ? new GameArchive(root.resolve("archive"),
+                        Long.getLong(PROP_ARCHIVE_SEGMENT_BYTES, 64L << 20),
+                        Boolean.parseBoolean(System.getProperty(PROP_ARCHIVE_MMAP, "true")))
+                : null;
+        boolean fileLocks = fileLockMode();
+        if (!fileLocks) DataDirLock.acquire(root);
+        this.gameStore = new GameFileStore(root.resolve("games"), () -> userStore.loadAllUsers().keySet(),
+                archive, fileLocks);
+        this.activeGames = new ActiveGamesManifest(root.resolve("active-games.log"));
+        this.readerThreads = Math.max(1,
+                Integer.getInteger(PROP_READER_THREADS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /** {@code file} (default) locks sidecar files per game; {@code striped} is for single-process deployments. */
+    private static boolean fileLockMode() {
+        String mode = System.getProperty(PROP_LOCK_MODE, "file").trim().toLowerCase(Locale.ROOT);
+        return switch (mode) {
+            case "file" -> true;
+            case "striped" -> false;
+            default -> throw new IllegalArgumentException("Unknown " + PROP_LOCK_MODE + ": " + mode);
+        };
     }
 
     public Map<String, User> loadAllUsers() {
@@ -42,12 +80,113 @@ public class FileStores implements GameRepository {
 
     @Override
     public void saveGame(Game game) throws IOException {
+        if (game == null || game.getId() == null || game.getId().isBlank()) {
+            throw new IllegalArgumentException("Game or game.id is null/blank");
+        }
+
+        boolean ongoing = isOngoing(game);
+        if (ongoing) {
+            ensureManifest();
+            activeGames.add(game.getId());
+        }
+
         gameStore.saveGame(game);
+
+        if (!ongoing) {
+            try {
+                ensureManifest();
+                activeGames.remove(game.getId());
+            } catch (IOException e) {
+                Log.warn("Failed to drop finished game from active manifest: " + game.getId(), e);
+            }
+        }
+    }
+
+    /** Reads only the games listed in the active-games manifest instead of the whole history. */
+    @Override
+    public List<Game> loadOngoingGames() {
+        List<Game> scanned = ensureManifest();
+        if (scanned != null) return scanned;
+
+        Set<String> ids = activeGames.read();
+        if (ids == null) return List.of();
+
+        List<Game> out = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Game g = gameStore.findGameById(id).orElse(null);
+            if (g != null && isOngoing(g)) {
+                out.add(g);
+                continue;
+            }
+            try {
+                activeGames.remove(id);
+            } catch (IOException e) {
+                Log.warn("Failed to drop stale id from active manifest: " + id, e);
+            }
+        }
+        return out;
     }
 
     @Override
     public List<Game> loadAllGames() {
-        return gameStore.loadAllGames();
+        return gameStore.loadAllGames(readerThreads);
+    }
+
+    @Override
+    public void forEachGame(Consumer<? super Game> visitor) {
+        gameStore.forEachGame(readerThreads, visitor);
+    }
+
+    /**
+     * Rebuilds the manifest from the games directory if it is missing or corrupt.
+     * Returns the ongoing games found while rebuilding, or {@code null} if the manifest was already usable.
+     */
+    private List<Game> ensureManifest() {
+        if (manifestReady) return null;
+        synchronized (manifestInit) {
+            if (manifestReady) return null;
+            List<Game> ongoing = null;
+            if (activeGames.read() == null) {
+                ongoing = new ArrayList<>();
+                List<String> ids = new ArrayList<>();
+                for (Game g : gameStore.loadLiveGames()) {
+                    if (!isOngoing(g)) continue;
+                    ongoing.add(g);
+                    ids.add(g.getId());
+                }
+                try {
+                    activeGames.replace(ids);
+                } catch (IOException e) {
+                    Log.warn("Failed to write active games manifest.", e);
+                    return ongoing;
+                }
+                Log.info("Rebuilt active games manifest with " + ids.size() + " ongoing game(s).");
+            }
+            manifestReady = true;
+            return ongoing;
+        }
+    }
+
+    private static boolean isOngoing(Game g) {
+        return g.getResult() == null || g.getResult() == Result.ONGOING;
+    }
+
+    /** Bulk-appends finished games straight into the archive (tools, migrations). */
+    public void importFinishedGames(List<Game> games) throws IOException {
+        if (games == null || games.isEmpty()) return;
+        gameStore.importFinishedGames(games);
+    }
+
+    /** Moves finished games left as JSON files (e.g. from older versions) into the archive. */
+    public int archiveFinishedGames() {
+        return gameStore.archiveFinishedGames();
+    }
+
+    /** Releases the archive's open channels and mappings; call after the last save has been written. */
+    @Override
+    public void close() {
+        activeGames.close();
+        gameStore.close();
     }
 
 }
@@ -0,0 +1,390 @@
+package com.example.chess.server.fs;
+
+import com.example.chess.common.model.Game;
+import com.example.chess.server.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only archive for finished games.
+ * Records live in numbered segment files framed as {@code [len][payload][crc32]};
+ * {@code index.idx} maps game ids to (segment, offset, length) and is loaded into memory on startup.
+ * Reads memory-map each sealed segment once and decode records in place, so history and replay requests
+ * never copy a whole segment onto the heap. The segment still being appended to is read with positional
+ * reads instead, since a mapping of a growing file would have to be redone after every append.
+ */
+final class GameArchive implements AutoCloseable {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_FILE = "index.idx";
+    private static final int FRAME_OVERHEAD = 8;
+
+    record Entry(String id, int segment, long offset, int length, String whiteUser, String blackUser) {}
+
+    private final Path dir;
+    private final Path indexFile;
+    private final long maxSegmentBytes;
+    private final boolean mmapReads;
+
+    private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> idsByUser = new ConcurrentHashMap<>();
+    private final Map<Integer, FileChannel> readChannels = new ConcurrentHashMap<>();
+    private final Map<Integer, MappedByteBuffer> mappedSegments = new ConcurrentHashMap<>();
+
+    private final Object appendLock = new Object();
+    private FileChannel segmentChannel;
+    private FileChannel indexChannel;
+    private volatile int segmentNo;
+    private volatile boolean closed;
+
+    GameArchive(Path dir, long maxSegmentBytes, boolean mmapReads) {
+        this.dir = dir;
+        this.indexFile = dir.resolve(INDEX_FILE);
+        this.maxSegmentBytes = Math.min(Integer.MAX_VALUE, Math.max(1L << 16, maxSegmentBytes));
+        this.mmapReads = mmapReads;
+        try {
+            Files.createDirectories(dir);
+            loadIndex();
+            this.segmentNo = Math.max(1, latestSegmentNo());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to initialize game archive", e);
+        }
+    }
+
+    boolean contains(String id) {
+        return id != null && byId.containsKey(id);
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    Collection<Entry> entries() {
+        return byId.values();
+    }
+
+    List<Entry> entriesForUser(String username) {
+        if (username == null) return List.of();
+        Set<String> ids = idsByUser.get(username);
+        if (ids == null) return List.of();
+        List<Entry> out = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Entry e = byId.get(id);
+            if (e != null) out.add(e);
+        }
+        return out;
+    }
+
+    Optional<Game> find(String id) {
+        if (id == null) return Optional.empty();
+        Entry e = byId.get(id);
+        if (e == null) return Optional.empty();
+        return Optional.ofNullable(read(e));
+    }
+
+    Game read(Entry e) {
+        try {
+            boolean mapped = mmapReads && e.segment() != segmentNo;
+            ByteBuffer frame = mapped ? mappedRecord(e) : copiedRecord(e);
+            ByteBuffer payload = frame.slice(0, e.length());
+            if (crc(payload.duplicate()) != frame.getInt(e.length())) {
+                Log.warn("Checksum mismatch for archived game " + e.id() + " in " + segmentFile(e.segment()), null);
+                return null;
+            }
+            return GameRecordCodec.decode(payload);
+        } catch (IOException | RuntimeException ex) {
+            Log.warn("Failed to read archived game " + e.id() + " from " + segmentFile(e.segment()), ex);
+            return null;
+        }
+    }
+
+    /** Returns a view of payload + crc inside the mapped segment; nothing is copied. */
+    private ByteBuffer mappedRecord(Entry e) throws IOException {
+        long end = e.offset() + e.length() + 4;
+        MappedByteBuffer map = mappedSegments.get(e.segment());
+        if (map == null || map.capacity() < end) {
+            map = remap(e.segment(), end);
+        }
+        return map.slice((int) e.offset(), e.length() + 4);
+    }
+
+    private MappedByteBuffer remap(int segment, long minSize) throws IOException {
+        synchronized (mappedSegments) {
+            MappedByteBuffer map = mappedSegments.get(segment);
+            if (map != null && map.capacity() >= minSize) return map;
+
+            FileChannel ch = readChannel(segment);
+            long size = ch.size();
+            if (size < minSize) throw new EOFException("Truncated archive record.");
+            map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mappedSegments.put(segment, map);
+            return map;
+        }
+    }
+
+    private ByteBuffer copiedRecord(Entry e) throws IOException {
+        FileChannel ch = readChannel(e.segment());
+        ByteBuffer buf = ByteBuffer.allocate(e.length() + 4);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, e.offset() + buf.position()) < 0) throw new EOFException("Truncated archive record.");
+        }
+        buf.flip();
+        return buf;
+    }
+
+    void append(Game game) throws IOException {
+        appendAll(List.of(game));
+    }
+
+    /** Appends a batch with one fsync per file, so bulk imports do not pay a sync per game. */
+    void appendAll(List<Game> games) throws IOException {
+        if (games.isEmpty()) return;
+        List<byte[]> payloads = new ArrayList<>(games.size());
+        for (Game g : games) payloads.add(GameRecordCodec.encode(g));
+
+        synchronized (appendLock) {
+            List<Entry> added = new ArrayList<>(games.size());
+            FileChannel seg = null;
+            for (int i = 0; i < games.size(); i++) {
+                byte[] payload = payloads.get(i);
+                FileChannel next = activeSegment(payload.length + FRAME_OVERHEAD);
+                seg = next;
+                long frameStart = seg.size();
+
+                ByteBuffer frame = ByteBuffer.allocate(payload.length + FRAME_OVERHEAD);
+                frame.putInt(payload.length).put(payload).putInt(crc(ByteBuffer.wrap(payload)));
+                frame.flip();
+                writeFully(seg, frame, frameStart);
+
+                Game g = games.get(i);
+                added.add(new Entry(g.getId(), segmentNo, frameStart + 4, payload.length,
+                        g.getWhiteUser(), g.getBlackUser()));
+            }
+            seg.force(false);
+
+            FileChannel idx = indexChannel();
+            long pos = idx.size();
+            for (Entry e : added) {
+                ByteBuffer rec = encodeIndexEntry(e);
+                int n = rec.remaining();
+                writeFully(idx, rec, pos);
+                pos += n;
+            }
+            idx.force(false);
+
+            for (Entry e : added) put(e);
+        }
+    }
+
+    private FileChannel activeSegment(int frameBytes) throws IOException {
+        if (closed) throw new IOException("Game archive is closed.");
+        if (segmentChannel == null) {
+            segmentChannel = FileChannel.open(segmentFile(segmentNo),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        }
+        if (segmentChannel.size() > 0 && segmentChannel.size() + frameBytes > maxSegmentBytes) {
+            segmentChannel.force(false);
+            segmentChannel.close();
+            segmentNo++;
+            segmentChannel = FileChannel.open(segmentFile(segmentNo),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        }
+        return segmentChannel;
+    }
+
+    private FileChannel indexChannel() throws IOException {
+        if (indexChannel == null) {
+            indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+        return indexChannel;
+    }
+
+    private FileChannel readChannel(int segment) throws IOException {
+        FileChannel ch = readChannels.get(segment);
+        if (ch != null && ch.isOpen()) return ch;
+        synchronized (readChannels) {
+            if (closed) throw new IOException("Game archive is closed.");
+            ch = readChannels.get(segment);
+            if (ch == null || !ch.isOpen()) {
+                ch = FileChannel.open(segmentFile(segment), StandardOpenOption.READ);
+                readChannels.put(segment, ch);
+            }
+            return ch;
+        }
+    }
+
+    /**
+     * Closes the append and read channels. Mappings cannot be unmapped explicitly; dropping them here
+     * lets the collector release them once in-flight reads are done.
+     */
+    @Override
+    public void close() {
+        synchronized (appendLock) {
+            closed = true;
+            closeQuietly(segmentChannel);
+            closeQuietly(indexChannel);
+            segmentChannel = null;
+            indexChannel = null;
+        }
+        synchronized (readChannels) {
+            for (FileChannel ch : readChannels.values()) closeQuietly(ch);
+            readChannels.clear();
+        }
+        synchronized (mappedSegments) {
+            mappedSegments.clear();
+        }
+    }
+
+    private static void closeQuietly(FileChannel ch) {
+        if (ch == null) return;
+        try {
+            ch.close();
+        } catch (IOException e) {
+            Log.warn("Failed to close archive channel.", e);
+        }
+    }
+
+    private void put(Entry e) {
+        Entry prev = byId.put(e.id(), e);
+        if (prev == null) {
+            indexUser(e.whiteUser(), e.id());
+            indexUser(e.blackUser(), e.id());
+        }
+    }
+
+    private void indexUser(String username, String id) {
+        if (username == null || username.isBlank()) return;
+        idsByUser.computeIfAbsent(username, k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private void loadIndex() throws IOException {
+        if (!Files.exists(indexFile)) return;
+
+        long goodBytes = 0;
+        try (InputStream raw = Files.newInputStream(indexFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 1 << 16))) {
+            while (true) {
+                int len;
+                try {
+                    len = in.readInt();
+                } catch (EOFException eof) {
+                    break;
+                }
+                if (len <= 0 || len > (1 << 20)) break;
+                byte[] payload = new byte[len];
+                int crc;
+                try {
+                    in.readFully(payload);
+                    crc = in.readInt();
+                } catch (EOFException eof) {
+                    break;
+                }
+                if (crc != crc(ByteBuffer.wrap(payload))) break;
+                put(decodeIndexEntry(ByteBuffer.wrap(payload)));
+                goodBytes += FRAME_OVERHEAD + len;
+            }
+        }
+
+        long size = Files.size(indexFile);
+        if (goodBytes < size) {
+            Log.warn("Truncating damaged archive index tail: " + indexFile + " (" + (size - goodBytes) + " bytes)", null);
+            try (FileChannel ch = FileChannel.open(indexFile, StandardOpenOption.WRITE)) {
+                ch.truncate(goodBytes);
+                ch.force(true);
+            }
+        }
+    }
+
+    private int latestSegmentNo() throws IOException {
+        int max = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path p : stream) {
+                String name = p.getFileName().toString();
+                String num = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+                try {
+                    max = Math.max(max, Integer.parseInt(num));
+                } catch (NumberFormatException ignored) {
+                    // foreign file, not one of ours
+                }
+            }
+        }
+        return max;
+    }
+
+    private Path segmentFile(int no) {
+        return dir.resolve(String.format("%s%05d%s", SEGMENT_PREFIX, no, SEGMENT_SUFFIX));
+    }
+
+    private static ByteBuffer encodeIndexEntry(Entry e) {
+        byte[] id = bytes(e.id());
+        byte[] w = bytes(e.whiteUser());
+        byte[] b = bytes(e.blackUser());
+        int len = 2 + id.length + 4 + 8 + 4 + 2 + w.length + 2 + b.length;
+
+        ByteBuffer payload = ByteBuffer.allocate(len);
+        payload.putShort((short) id.length).put(id);
+        payload.putInt(e.segment()).putLong(e.offset()).putInt(e.length());
+        payload.putShort((short) w.length).put(w);
+        payload.putShort((short) b.length).put(b);
+        payload.flip();
+
+        ByteBuffer rec = ByteBuffer.allocate(len + FRAME_OVERHEAD);
+        rec.putInt(len).put(payload.duplicate()).putInt(crc(payload));
+        rec.flip();
+        return rec;
+    }
+
+    private static Entry decodeIndexEntry(ByteBuffer in) {
+        String id = string(in);
+        int segment = in.getInt();
+        long offset = in.getLong();
+        int length = in.getInt();
+        String white = string(in);
+        String black = string(in);
+        return new Entry(id, segment, offset, length, white, black);
+    }
+
+    private static byte[] bytes(String s) {
+        return s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer in) {
+        int n = in.getShort() & 0xFFFF;
+        byte[] b = new byte[n];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(ByteBuffer buf) {
+        CRC32 crc = new CRC32();
+        crc.update(buf);
+        return (int) crc.getValue();
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        long pos = position;
+        while (buf.hasRemaining()) {
+            pos += ch.write(buf, pos);
+        }
+    }
+}
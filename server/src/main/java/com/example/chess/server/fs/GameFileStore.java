@@ -1,6 +1,7 @@
 package com.example.chess.server.fs;
 
 import com.example.chess.common.model.Game;
+import com.example.chess.common.model.Result;
 import com.example.chess.server.util.Log;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -16,6 +17,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -23,19 +25,46 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
-final class GameFileStore {
+final class GameFileStore implements AutoCloseable {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
 
+    private static final int LOCK_STRIPES = 256;
+
     private final Path gamesDir;
     private final Supplier<Set<String>> validUsersSupplier;
-    private final ConcurrentMap<String, Object> gameMutexes = new ConcurrentHashMap<>();
+    private final GameArchive archive;
+    private final boolean fileLocks;
+    private final Object[] stripes = new Object[LOCK_STRIPES];
+    private ThreadPoolExecutor readerPool;
 
     GameFileStore(Path gamesDir, Supplier<Set<String>> validUsersSupplier) {
+        this(gamesDir, validUsersSupplier, null);
+    }
+
+    GameFileStore(Path gamesDir, Supplier<Set<String>> validUsersSupplier, GameArchive archive) {
+        this(gamesDir, validUsersSupplier, archive, true);
+    }
+
+    /**
+     * @param fileLocks take an OS lock on a {@code <id>.json.lock} sidecar for every access, so several
+     *                  processes can share the directory; when false only the in-process stripes are used
+     */
+    GameFileStore(Path gamesDir, Supplier<Set<String>> validUsersSupplier, GameArchive archive, boolean fileLocks) {
         this.gamesDir = gamesDir;
         this.validUsersSupplier = validUsersSupplier;
+        this.archive = archive;
+        this.fileLocks = fileLocks;
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new Object();
         try {
             Files.createDirectories(gamesDir);
         } catch (IOException e) {
@@ -46,14 +75,23 @@ final class GameFileStore {
     Optional<Game> findGameById(String id) {
         Path file = gameFile(id);
         if (!Files.exists(file)) {
-            return Optional.empty();
+            return findArchived(id);
         }
         Game game = readGameFile(file);
-        if (game == null) return Optional.empty();
+        if (game == null) {
+            return Files.exists(file) ? Optional.empty() : findArchived(id);
+        }
         sanitizeReason(game);
         return Optional.of(game);
     }
 
+    private Optional<Game> findArchived(String id) {
+        if (archive == null) return Optional.empty();
+        Optional<Game> game = archive.find(id);
+        game.ifPresent(GameFileStore::sanitizeReason);
+        return game;
+    }
+
     Map<String, Game> findGamesForUser(String username) {
         Map<String, Game> result = new HashMap<>();
         if (!Files.exists(gamesDir)) {
@@ -62,19 +100,21 @@ final class GameFileStore {
 
         Set<String> validUsers = safeValidUsers();
 
+        if (archive != null) {
+            for (GameArchive.Entry e : archive.entriesForUser(username)) {
+                if (!isListable(e.whiteUser(), e.blackUser(), username, validUsers)) continue;
+                Game game = archive.read(e);
+                if (game == null || game.getId() == null) continue;
+                sanitizeReason(game);
+                result.put(game.getId(), game);
+            }
+        }
+
         try (DirectoryStream<Path> stream = Files.newDirectoryStream(gamesDir, "*.json")) {
             for (Path file : stream) {
                 Game game = readGameFile(file);
                 if (game == null || game.getId() == null) continue;
-
-                String w = game.getWhiteUser();
-                String b = game.getBlackUser();
-
-                if (w == null || b == null || w.isBlank() || b.isBlank()) continue;
-                if (w.equals(b)) continue;
-
-                if (!validUsers.contains(w) || !validUsers.contains(b)) continue;
-                if (!username.equals(w) && !username.equals(b)) continue;
+                if (!isListable(game.getWhiteUser(), game.getBlackUser(), username, validUsers)) continue;
 
                 sanitizeReason(game);
                 result.put(game.getId(), game);
@@ -86,6 +126,14 @@ final class GameFileStore {
         return result;
     }
 
+    private static boolean isListable(String w, String b, String username, Set<String> validUsers) {
+        if (w == null || b == null || w.isBlank() || b.isBlank()) return false;
+        if (w.equals(b)) return false;
+
+        if (!validUsers.contains(w) || !validUsers.contains(b)) return false;
+        return username.equals(w) || username.equals(b);
+    }
+
     void saveGame(Game game) throws IOException {
         if (game == null || game.getId() == null || game.getId().isBlank()) {
             throw new IllegalArgumentException("Game or game.id is null/blank");
@@ -95,6 +143,10 @@ final class GameFileStore {
 
         Files.createDirectories(gamesDir);
         sanitizeReason(game);
+        if (isArchivable(game)) {
+            archiveGame(file, game);
+            return;
+        }
         String json = GSON.toJson(game);
         try {
             withGameLock(file, () -> {
@@ -110,7 +162,58 @@ final class GameFileStore {
         }
     }
 
-    List<Game> loadAllGames() {
+    List<Game> loadAllGames(int parallelism) {
+        List<Game> out = Collections.synchronizedList(new ArrayList<>());
+        forEachGame(parallelism, out::add);
+        return new ArrayList<>(out);
+    }
+
+    /**
+     * Hands every stored game to {@code visitor}, live JSON games first and then archived ones not shadowed
+     * by a live copy. Files are read by {@code parallelism} threads and at most a few games per thread are
+     * in flight, so memory stays flat however many games are stored. The visitor runs on the reader threads
+     * and must be thread-safe; the first exception it throws stops the walk and is rethrown here.
+     */
+    void forEachGame(int parallelism, Consumer<? super Game> visitor) {
+        if (visitor == null) throw new IllegalArgumentException("Missing visitor.");
+        int threads = Math.max(1, parallelism);
+        ParallelReader reader = new ParallelReader(readerPool(threads), threads);
+        try {
+            Set<String> live = ConcurrentHashMap.newKeySet();
+            if (Files.exists(gamesDir)) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(gamesDir, "*.json")) {
+                    for (Path file : stream) {
+                        reader.submit(() -> {
+                            Game g = readGameFile(file);
+                            if (g == null || g.getId() == null || g.getId().isBlank()) return;
+                            live.add(g.getId());
+                            visitor.accept(g);
+                        });
+                    }
+                } catch (IOException | DirectoryIteratorException ex) {
+                    Log.warn("Failed to list games directory.", ex);
+                }
+            }
+            // Archived copies are only skipped once every live id is known.
+            reader.awaitIdle();
+
+            if (archive != null) {
+                for (GameArchive.Entry e : archive.entries()) {
+                    if (live.contains(e.id())) continue;
+                    reader.submit(() -> {
+                        Game g = archive.read(e);
+                        if (g != null) visitor.accept(g);
+                    });
+                }
+            }
+            reader.awaitIdle();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /** Games still stored as JSON files: ongoing games, plus finished ones when archiving is off. */
+    List<Game> loadLiveGames() {
         List<Game> out = new ArrayList<>();
         try {
             if (!Files.exists(gamesDir)) return out;
@@ -127,6 +230,161 @@ final class GameFileStore {
         return out;
     }
 
+    /** Moves finished games still stored as JSON into the archive. Returns how many were moved. */
+    int archiveFinishedGames() {
+        if (archive == null || !Files.exists(gamesDir)) return 0;
+
+        int moved = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(gamesDir, "*.json")) {
+            for (Path file : stream) {
+                Game g = readGameFile(file);
+                if (g == null || g.getId() == null || !isArchivable(g)) continue;
+                if (!file.equals(gameFile(g.getId()))) continue;
+                try {
+                    sanitizeReason(g);
+                    archiveGame(file, g);
+                    moved++;
+                } catch (IOException e) {
+                    Log.warn("Failed to archive finished game: " + file, e);
+                }
+            }
+        } catch (IOException | DirectoryIteratorException ex) {
+            Log.warn("Failed to scan games directory for archiving: " + gamesDir, ex);
+        }
+        return moved;
+    }
+
+    void importFinishedGames(List<Game> games) throws IOException {
+        if (archive == null) throw new IllegalStateException("Game archive is disabled.");
+        for (Game g : games) {
+            if (g == null || g.getId() == null || !isArchivable(g)) {
+                throw new IllegalArgumentException("Only finished games can be imported into the archive.");
+            }
+            sanitizeReason(g);
+        }
+        archive.appendAll(games);
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (readerPool != null) readerPool.shutdown();
+        }
+        if (archive != null) archive.close();
+    }
+
+    /**
+     * Reader threads shared by every walk of this store, created on first use. Idle threads time out after
+     * a minute, so a store walked once at startup keeps none.
+     */
+    private synchronized ThreadPoolExecutor readerPool(int threads) {
+        if (readerPool == null) {
+            AtomicInteger n = new AtomicInteger();
+            readerPool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "game-reader-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            readerPool.allowCoreThreadTimeOut(true);
+        } else if (readerPool.getMaximumPoolSize() != threads) {
+            if (threads > readerPool.getMaximumPoolSize()) {
+                readerPool.setMaximumPoolSize(threads);
+                readerPool.setCorePoolSize(threads);
+            } else {
+                readerPool.setCorePoolSize(threads);
+                readerPool.setMaximumPoolSize(threads);
+            }
+        }
+        return readerPool;
+    }
+
+    /** One walk over the shared reader pool, with a semaphore capping its queued plus running reads. */
+    private static final class ParallelReader implements AutoCloseable {
+        private static final int IN_FLIGHT_PER_THREAD = 4;
+
+        private final Executor pool;
+        private final Semaphore permits;
+        private final int maxPermits;
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private volatile boolean closed;
+
+        ParallelReader(Executor pool, int threads) {
+            this.pool = pool;
+            this.maxPermits = threads * IN_FLIGHT_PER_THREAD;
+            this.permits = new Semaphore(maxPermits);
+        }
+
+        void submit(Runnable read) {
+            rethrow();
+            acquire(1);
+            try {
+                pool.execute(() -> {
+                    try {
+                        if (!closed && failure.get() == null) read.run();
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        void awaitIdle() {
+            acquire(maxPermits);
+            permits.release(maxPermits);
+            rethrow();
+        }
+
+        private void acquire(int count) {
+            try {
+                permits.acquire(count);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reading games.", e);
+            }
+        }
+
+        private void rethrow() {
+            RuntimeException e = failure.get();
+            if (e != null) throw e;
+        }
+
+        /** Skips reads not yet started and waits out running ones, so the visitor is never called after this. */
+        @Override
+        public void close() {
+            closed = true;
+            permits.acquireUninterruptibly(maxPermits);
+            permits.release(maxPermits);
+        }
+    }
+
+    private boolean isArchivable(Game game) {
+        return archive != null && game.getResult() != null && game.getResult() != Result.ONGOING;
+    }
+
+    private void archiveGame(Path file, Game game) throws IOException {
+        synchronized (stripeFor(file)) {
+            try {
+                withGameLock(file, () -> {
+                    try {
+                        archive.append(game);
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return null;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (fileLocks) Files.deleteIfExists(gameLockFile(file));
+        }
+    }
+
     private Path gameFile(String id) {
         return gamesDir.resolve(id + ".json");
     }
@@ -180,9 +438,14 @@ final class GameFileStore {
         }
     }
 
+    private Object stripeFor(Path gameFile) {
+        int h = gameFile.getFileName().toString().hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
     private <T> T withGameLock(Path gameFile, Supplier<T> action) {
-        Object mutex = gameMutexes.computeIfAbsent(gameFile.getFileName().toString(), k -> new Object());
-        synchronized (mutex) {
+        synchronized (stripeFor(gameFile)) {
+            if (!fileLocks) return action.get();
             try {
                 Files.createDirectories(gamesDir);
                 Path lockFile = gameLockFile(gameFile);
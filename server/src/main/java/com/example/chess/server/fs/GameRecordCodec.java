@@ -0,0 +1,356 @@
+package com.example.chess.server.fs;
+
+import com.example.chess.common.board.Board;
+import com.example.chess.common.model.Game;
+import com.example.chess.common.model.Result;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compact binary encoding of a finished game: header fields, final board as 64 bytes,
+ * moves as 16-bit square codes and move timestamps as zig-zag varint deltas.
+ */
+final class GameRecordCodec {
+    static final byte VERSION = 1;
+
+    private static final int MOVE_ESCAPE = 0xFFFF;
+
+    private static final int BY_NONE = 0;
+    private static final int BY_WHITE = 1;
+    private static final int BY_BLACK = 2;
+    private static final int BY_OTHER = 3;
+
+    private static final int FLAG_WHITE_MOVE = 1;
+    private static final int FLAG_RATED = 1 << 1;
+    private static final int FLAG_WK = 1 << 2;
+    private static final int FLAG_WQ = 1 << 3;
+    private static final int FLAG_BK = 1 << 4;
+    private static final int FLAG_BQ = 1 << 5;
+    private static final int FLAG_HISTORY_ALIGNED = 1 << 6;
+
+    private static final String PROMOTIONS = "qrbn";
+
+    private GameRecordCodec() {}
+
+    static byte[] encode(Game g) {
+        if (g == null || g.getId() == null) throw new IllegalArgumentException("Missing game.");
+
+        Writer w = new Writer(512);
+        w.writeByte(VERSION);
+        w.writeString(g.getId());
+        w.writeString(g.getWhiteUser());
+        w.writeString(g.getBlackUser());
+
+        w.writeLong(g.getCreatedAt());
+        w.writeLong(g.getLastUpdate());
+        w.writeLong(g.getTimeControlMs());
+        w.writeLong(g.getIncrementMs());
+        w.writeLong(g.getWhiteTimeMs());
+        w.writeLong(g.getBlackTimeMs());
+        w.writeLong(g.getWhiteOfflineSince());
+        w.writeLong(g.getBlackOfflineSince());
+
+        w.writeByte(resultCode(g.getResult()));
+        w.writeString(g.getResultReason());
+        w.writeString(g.getDrawOfferedBy());
+
+        List<String> moves = g.getMoves() == null ? List.of() : g.getMoves();
+        List<Game.MoveEntry> history = g.getMoveHistory() == null ? List.of() : g.getMoveHistory();
+        boolean aligned = isAligned(moves, history);
+
+        int flags = 0;
+        if (g.isWhiteMove()) flags |= FLAG_WHITE_MOVE;
+        if (g.isRated()) flags |= FLAG_RATED;
+        if (g.isWK()) flags |= FLAG_WK;
+        if (g.isWQ()) flags |= FLAG_WQ;
+        if (g.isBK()) flags |= FLAG_BK;
+        if (g.isBQ()) flags |= FLAG_BQ;
+        if (aligned) flags |= FLAG_HISTORY_ALIGNED;
+        w.writeByte(flags);
+        w.writeByte(g.getEnPassantRow());
+        w.writeByte(g.getEnPassantCol());
+
+        Board board = g.getBoard() == null ? Board.initial() : g.getBoard();
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) w.writeByte(board.get(r, c));
+        }
+
+        writePieces(w, g.getCapturedByWhite());
+        writePieces(w, g.getCapturedByBlack());
+
+        w.writeVarLong(moves.size());
+        long prevAt = g.getCreatedAt();
+        for (int i = 0; i < moves.size(); i++) {
+            writeMove(w, moves.get(i));
+            if (aligned) prevAt = writeHistoryTail(w, g, history.get(i), prevAt);
+        }
+
+        if (!aligned) {
+            w.writeVarLong(history.size());
+            for (Game.MoveEntry e : history) {
+                writeMove(w, e.getMove());
+                prevAt = writeHistoryTail(w, g, e, prevAt);
+            }
+        }
+
+        return w.toByteArray();
+    }
+
+    static Game decode(ByteBuffer in) {
+        byte version = in.get();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported game record version: " + version);
+
+        Game g = new Game();
+        g.setId(readString(in));
+        g.setWhiteUser(readString(in));
+        g.setBlackUser(readString(in));
+
+        g.setCreatedAt(in.getLong());
+        g.setLastUpdate(in.getLong());
+        g.setTimeControlMs(in.getLong());
+        g.setIncrementMs(in.getLong());
+        g.setWhiteTimeMs(in.getLong());
+        g.setBlackTimeMs(in.getLong());
+        g.setWhiteOfflineSince(in.getLong());
+        g.setBlackOfflineSince(in.getLong());
+
+        g.setResult(resultOf(in.get()));
+        g.setResultReason(readString(in));
+        g.setDrawOfferedBy(readString(in));
+
+        int flags = in.get() & 0xFF;
+        g.setWhiteMove((flags & FLAG_WHITE_MOVE) != 0);
+        g.setRated((flags & FLAG_RATED) != 0);
+        g.setWK((flags & FLAG_WK) != 0);
+        g.setWQ((flags & FLAG_WQ) != 0);
+        g.setBK((flags & FLAG_BK) != 0);
+        g.setBQ((flags & FLAG_BQ) != 0);
+        boolean aligned = (flags & FLAG_HISTORY_ALIGNED) != 0;
+        g.setEnPassantRow(in.get());
+        g.setEnPassantCol(in.get());
+
+        Board board = new Board();
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) board.set(r, c, (char) (in.get() & 0xFF));
+        }
+        g.setBoard(board);
+
+        g.setCapturedByWhite(readPieces(in));
+        g.setCapturedByBlack(readPieces(in));
+
+        int moveCount = (int) readVarLong(in);
+        List<String> moves = new ArrayList<>(moveCount);
+        List<Game.MoveEntry> history = new ArrayList<>(aligned ? moveCount : 0);
+        long prevAt = g.getCreatedAt();
+        for (int i = 0; i < moveCount; i++) {
+            String move = readMove(in);
+            moves.add(move);
+            if (aligned) {
+                String by = readBy(in, g);
+                prevAt += readZigZag(in);
+                history.add(new Game.MoveEntry(by, move, prevAt));
+            }
+        }
+
+        if (!aligned) {
+            int historyCount = (int) readVarLong(in);
+            history = new ArrayList<>(historyCount);
+            for (int i = 0; i < historyCount; i++) {
+                String move = readMove(in);
+                String by = readBy(in, g);
+                prevAt += readZigZag(in);
+                history.add(new Game.MoveEntry(by, move, prevAt));
+            }
+        }
+
+        g.setMoves(moves);
+        g.setMoveHistory(history);
+        return g;
+    }
+
+    private static boolean isAligned(List<String> moves, List<Game.MoveEntry> history) {
+        if (moves.size() != history.size()) return false;
+        for (int i = 0; i < moves.size(); i++) {
+            if (!Objects.equals(moves.get(i), history.get(i).getMove())) return false;
+        }
+        return true;
+    }
+
+    private static long writeHistoryTail(Writer w, Game g, Game.MoveEntry e, long prevAt) {
+        String by = e.getBy();
+        if (by == null) {
+            w.writeByte(BY_NONE);
+        } else if (by.equals(g.getWhiteUser())) {
+            w.writeByte(BY_WHITE);
+        } else if (by.equals(g.getBlackUser())) {
+            w.writeByte(BY_BLACK);
+        } else {
+            w.writeByte(BY_OTHER);
+            w.writeString(by);
+        }
+        w.writeZigZag(e.getAtMs() - prevAt);
+        return e.getAtMs();
+    }
+
+    private static String readBy(ByteBuffer in, Game g) {
+        int code = in.get();
+        return switch (code) {
+            case BY_NONE -> null;
+            case BY_WHITE -> g.getWhiteUser();
+            case BY_BLACK -> g.getBlackUser();
+            case BY_OTHER -> readString(in);
+            default -> throw new IllegalArgumentException("Bad move author code: " + code);
+        };
+    }
+
+    private static void writeMove(Writer w, String move) {
+        int code = moveCode(move);
+        w.writeShort(code);
+        if (code == MOVE_ESCAPE) w.writeString(move);
+    }
+
+    private static String readMove(ByteBuffer in) {
+        int code = in.getShort() & 0xFFFF;
+        if (code == MOVE_ESCAPE) return readString(in);
+
+        int from = code & 0x3F;
+        int to = (code >>> 6) & 0x3F;
+        int promo = (code >>> 12) & 0x7;
+
+        StringBuilder sb = new StringBuilder(5);
+        sb.append((char) ('a' + (from & 7))).append((char) ('1' + (from >>> 3)));
+        sb.append((char) ('a' + (to & 7))).append((char) ('1' + (to >>> 3)));
+        if (promo > 0) sb.append(PROMOTIONS.charAt(promo - 1));
+        return sb.toString();
+    }
+
+    /** Packs a UCI move into from(6) | to(6) | promotion(3) bits, or returns the escape code. */
+    private static int moveCode(String move) {
+        if (move == null || (move.length() != 4 && move.length() != 5)) return MOVE_ESCAPE;
+
+        int ff = move.charAt(0) - 'a';
+        int fr = move.charAt(1) - '1';
+        int tf = move.charAt(2) - 'a';
+        int tr = move.charAt(3) - '1';
+        if (ff < 0 || ff > 7 || fr < 0 || fr > 7 || tf < 0 || tf > 7 || tr < 0 || tr > 7) return MOVE_ESCAPE;
+
+        int promo = 0;
+        if (move.length() == 5) {
+            int idx = PROMOTIONS.indexOf(move.charAt(4));
+            if (idx < 0) return MOVE_ESCAPE;
+            promo = idx + 1;
+        }
+        return (fr * 8 + ff) | ((tr * 8 + tf) << 6) | (promo << 12);
+    }
+
+    private static void writePieces(Writer w, List<String> pieces) {
+        if (pieces == null) {
+            w.writeVarLong(0);
+            return;
+        }
+        w.writeVarLong(pieces.size());
+        for (String p : pieces) {
+            w.writeByte(p == null || p.isEmpty() ? '?' : p.charAt(0));
+        }
+    }
+
+    private static List<String> readPieces(ByteBuffer in) {
+        int n = (int) readVarLong(in);
+        List<String> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(String.valueOf((char) (in.get() & 0xFF)));
+        return out;
+    }
+
+    private static int resultCode(Result r) {
+        if (r == null) return 0;
+        return switch (r) {
+            case ONGOING -> 0;
+            case WHITE_WIN -> 1;
+            case BLACK_WIN -> 2;
+            case DRAW -> 3;
+            case ABORTED -> 4;
+        };
+    }
+
+    private static Result resultOf(int code) {
+        return switch (code) {
+            case 0 -> Result.ONGOING;
+            case 1 -> Result.WHITE_WIN;
+            case 2 -> Result.BLACK_WIN;
+            case 3 -> Result.DRAW;
+            case 4 -> Result.ABORTED;
+            default -> throw new IllegalArgumentException("Bad result code: " + code);
+        };
+    }
+
+    private static String readString(ByteBuffer in) {
+        long len = readVarLong(in) - 1;
+        if (len < 0) return null;
+        if (len > in.remaining()) throw new IllegalArgumentException("Truncated string in game record.");
+        byte[] bytes = new byte[(int) len];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readZigZag(ByteBuffer in) {
+        long v = readVarLong(in);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IllegalArgumentException("Malformed varint in game record.");
+    }
+
+    private static final class Writer extends ByteArrayOutputStream {
+        Writer(int size) {
+            super(size);
+        }
+
+        void writeByte(int v) {
+            write(v);
+        }
+
+        void writeShort(int v) {
+            write(v >>> 8);
+            write(v);
+        }
+
+        void writeLong(long v) {
+            for (int shift = 56; shift >= 0; shift -= 8) write((int) (v >>> shift));
+        }
+
+        void writeVarLong(long v) {
+            while ((v & ~0x7FL) != 0) {
+                write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            write((int) v);
+        }
+
+        void writeZigZag(long v) {
+            writeVarLong((v << 1) ^ (v >> 63));
+        }
+
+        /** Null-safe: length is stored as {@code len + 1} so that 0 means null. */
+        void writeString(String s) {
+            if (s == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            write(bytes, 0, bytes.length);
+        }
+    }
+}
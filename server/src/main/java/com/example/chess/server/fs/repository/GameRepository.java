@@ -1,15 +1,31 @@
 package com.example.chess.server.fs.repository;
 
 import com.example.chess.common.model.Game;
+import com.example.chess.common.model.Result;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface GameRepository {
     void saveGame(Game game) throws IOException;
     Optional<Game> findGameById(String id);
     Map<String, Game> findGamesForUser(String username);
     List<Game> loadAllGames();
+
+    /**
+     * Visits every stored game without building the full list. Implementations may call the visitor
+     * from several threads at once, so it must be thread-safe.
+     */
+    default void forEachGame(Consumer<? super Game> visitor) {
+        loadAllGames().forEach(visitor);
+    }
+
+    default List<Game> loadOngoingGames() {
+        return loadAllGames().stream()
+                .filter(g -> g.getResult() == null || g.getResult() == Result.ONGOING)
+                .toList();
+    }
 }
@@ -0,0 +1,52 @@
+package com.example.chess.server.logic;
+
+import com.example.chess.server.util.ServerMetrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in work counters of {@link RulesEngine}: pseudo-moves tried, legality checks, board copies and
+ * king-in-check tests, next to the number of moves applied, so per-move cost can be read as a ratio
+ * of rates. {@link #DISABLED} costs one branch per engine call.
+ */
+public final class RulesCounters {
+
+    public static final RulesCounters DISABLED = new RulesCounters(false);
+
+    final boolean enabled;
+    final LongAdder pseudoMoves = new LongAdder();
+    final LongAdder legalityChecks = new LongAdder();
+    final LongAdder boardCopies = new LongAdder();
+    final LongAdder checkTests = new LongAdder();
+    final LongAdder movesApplied = new LongAdder();
+
+    private RulesCounters(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static RulesCounters enabled() {
+        return new RulesCounters(true);
+    }
+
+    /** Counts only when {@code chess.metrics.rulesCounters} is true. */
+    public static RulesCounters fromSystemProperties() {
+        return Boolean.getBoolean("chess.metrics.rulesCounters") ? enabled() : DISABLED;
+    }
+
+    public long pseudoMoves() { return pseudoMoves.sum(); }
+    public long legalityChecks() { return legalityChecks.sum(); }
+    public long boardCopies() { return boardCopies.sum(); }
+    public long checkTests() { return checkTests.sum(); }
+    public long movesApplied() { return movesApplied.sum(); }
+
+    public void registerMetrics(ServerMetrics metrics) {
+        if (!enabled) return;
+        metrics.registerCounter("chess_rules_moves_applied_total", "Moves applied to live games by the rules engine.",
+                this::movesApplied);
+        metrics.registerCounter("chess_rules_pseudo_moves_total",
+                "Candidate moves generated while searching for a legal move.", this::pseudoMoves);
+        metrics.registerCounter("chess_rules_legality_checks_total", "isLegalMove calls.", this::legalityChecks);
+        metrics.registerCounter("chess_rules_board_copies_total", "Board copies made to try a move.", this::boardCopies);
+        metrics.registerCounter("chess_rules_check_tests_total", "isKingInCheck calls.", this::checkTests);
+    }
+}
@@ -17,24 +17,51 @@ public final class RulesEngine {
     private final EnPassantRule enPassant = new EnPassantRule();
     private final MoveApplier applier = new MoveApplier(castling, enPassant);
     private final MoveLegalityChecker legality = new MoveLegalityChecker(castling, enPassant);
+    private final RulesCounters counters;
+
+    public RulesEngine() {
+        this(RulesCounters.DISABLED);
+    }
+
+    public RulesEngine(RulesCounters counters) {
+        this.counters = counters == null ? RulesCounters.DISABLED : counters;
+    }
+
+    public RulesCounters counters() {
+        return counters;
+    }
 
     public boolean isLegalMove(Game game, Board board, Move move) {
+        if (counters.enabled) counters.legalityChecks.increment();
         return legality.isLegalMove(game, board, move);
     }
 
     public void applyMove(Board board, Game game, Move move, boolean updateState) {
         applier.applyMove(board, game, move, updateState);
+        if (updateState && counters.enabled) counters.movesApplied.increment();
     }
 
     public boolean isKingInCheck(Board board, boolean whiteKing) {
+        if (counters.enabled) counters.checkTests.increment();
         return attacks.isKingInCheck(board, whiteKing);
     }
 
+    /** Copy of {@code board} to try a move on. */
+    public Board trialCopy(Board board) {
+        if (counters.enabled) counters.boardCopies.increment();
+        return board.copy();
+    }
+
     public boolean hasAnyLegalMove(Game game, Board board, boolean whiteToMove) {
         if (board == null) throw new IllegalArgumentException("There is no board.");
 
         Color side = whiteToMove ? Color.WHITE : Color.BLACK;
+        // Tallied locally and added once, so the search does not touch the shared counters per candidate.
+        long candidates = 0;
+        long tried = 0;
+        boolean found = false;
 
+        search:
         for (int fr = 0; fr < 8; fr++) {
             for (int fc = 0; fc < 8; fc++) {
                 Piece p = board.getPieceAt(fr, fc);
@@ -45,13 +72,16 @@ public final class RulesEngine {
                         if (fr == tr && fc == tc) continue;
 
                         for (Move m : candidateMovesFor(p, fr, fc, tr, tc, whiteToMove)) {
-                            if (!isLegalMove(game, board, m)) continue;
+                            candidates++;
+                            if (!legality.isLegalMove(game, board, m)) continue;
 
+                            tried++;
                             Board copy = board.copy();
-                            applyMove(copy, game, m, false);
+                            applier.applyMove(copy, game, m, false);
 
-                            if (!isKingInCheck(copy, whiteToMove)) {
-                                return true;
+                            if (!attacks.isKingInCheck(copy, whiteToMove)) {
+                                found = true;
+                                break search;
                             }
                         }
                     }
@@ -59,7 +89,13 @@ public final class RulesEngine {
             }
         }
 
-        return false;
+        if (counters.enabled) {
+            counters.pseudoMoves.add(candidates);
+            counters.legalityChecks.add(candidates);
+            counters.boardCopies.add(tried);
+            counters.checkTests.add(tried);
+        }
+        return found;
     }
 
     private List<Move> candidateMovesFor(Piece p,
@@ -17,6 +17,7 @@ final class BackupEntryRules {
 
         if (rel.equals("users.json")) return true;
         if (rel.equals("server-state.json")) return true;
+        if (isArchiveFile(rel, name)) return true;
         return rel.startsWith("games/") && name.endsWith(".json");
     }
 
@@ -31,9 +32,15 @@ final class BackupEntryRules {
 
         if (name.equals("users.json")) return true;
         if (name.equals("server-state.json")) return true;
+        if (isArchiveFile(name, base)) return true;
         return name.startsWith("games/") && base.endsWith(".json");
     }
 
+    private static boolean isArchiveFile(String rel, String base) {
+        if (!rel.startsWith("archive/")) return false;
+        return base.equals("index.idx") || (base.startsWith("segment-") && base.endsWith(".seg"));
+    }
+
     static boolean isSafeEntry(String name) {
         if (name == null) return false;
         String n = name.replace('\\', '/');
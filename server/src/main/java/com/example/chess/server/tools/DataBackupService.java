@@ -120,6 +120,9 @@ final class DataBackupService {
             }
         }
 
+        // Restored games may not match the manifest; the server rebuilds it on next start.
+        deleteIfExists(normalizedRoot.resolve("active-games.log"));
+
         System.out.println("Restore completed into: " + normalizedRoot);
     }
 
@@ -132,9 +135,13 @@ final class DataBackupService {
         deleteIfExists(usersLock);
         deleteIfExists(serverState);
 
-        Path games = dataDir.resolve("games");
-        if (!Files.exists(games)) return;
-        try (var stream = Files.newDirectoryStream(games)) {
+        purgeFilesIn(dataDir.resolve("games"));
+        purgeFilesIn(dataDir.resolve("archive"));
+    }
+
+    private static void purgeFilesIn(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (var stream = Files.newDirectoryStream(dir)) {
             for (Path p : stream) {
                 if (Files.isDirectory(p)) continue;
                 deleteIfExists(p);
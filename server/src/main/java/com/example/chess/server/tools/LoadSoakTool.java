@@ -106,6 +106,8 @@ public final class LoadSoakTool {
                     + " errors=" + errors.get()
                     + " elapsedMs=" + elapsedMs
                     + " movesPerSec=" + eps);
+        } finally {
+            if (repo instanceof FileStores stores) stores.close();
         }
     }
 
@@ -0,0 +1,108 @@
+package com.example.chess.server.tools;
+
+import com.example.chess.common.model.Game;
+import com.example.chess.common.model.Result;
+import com.example.chess.server.fs.FileStores;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures startup recovery and full-history scans against a data directory holding many finished games.
+ * Usage: {@code [dataDir] [--archived=N] [--ongoing=M]}; the directory is seeded only when it is empty.
+ */
+public final class RecoveryBenchTool {
+    private static final int IMPORT_BATCH = 10_000;
+
+    private RecoveryBenchTool() {}
+
+    public static void main(String[] args) {
+        try {
+            run(args);
+        } catch (Exception e) {
+            System.err.println("Recovery bench error: " + e.getMessage());
+            e.printStackTrace(System.err);
+            System.exit(1);
+        }
+    }
+
+    private static void run(String[] args) throws IOException {
+        Path dataDir = Path.of("bench-data");
+        int archived = 1_000_000;
+        int ongoing = 100;
+        for (String a : args) {
+            if (a.startsWith("--archived=")) archived = Integer.parseInt(a.substring("--archived=".length()));
+            else if (a.startsWith("--ongoing=")) ongoing = Integer.parseInt(a.substring("--ongoing=".length()));
+            else if (!a.startsWith("--")) dataDir = Path.of(a);
+            else throw new IllegalArgumentException("Unknown option: " + a);
+        }
+
+        if (!Files.exists(dataDir.resolve("games"))) {
+            seed(dataDir, archived, ongoing);
+        }
+
+        long t0 = System.nanoTime();
+        try (FileStores stores = new FileStores(dataDir)) {
+            long openNs = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            int recovered = stores.loadOngoingGames().size();
+            long ongoingNs = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            int all = stores.loadAllGames().size();
+            long allNs = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            LongAdder visited = new LongAdder();
+            stores.forEachGame(g -> visited.increment());
+            long streamNs = System.nanoTime() - t0;
+
+            System.out.printf("open stores:        %8.1f ms%n", openNs / 1e6);
+            System.out.printf("loadOngoingGames:   %8.1f ms (%d games)%n", ongoingNs / 1e6, recovered);
+            System.out.printf("loadAllGames:       %8.1f ms (%d games)%n", allNs / 1e6, all);
+            System.out.printf("forEachGame:        %8.1f ms (%d games)%n", streamNs / 1e6, visited.sum());
+        }
+    }
+
+    private static void seed(Path dataDir, int archived, int ongoing) throws IOException {
+        try (FileStores stores = new FileStores(dataDir)) {
+            long now = System.currentTimeMillis();
+            long t0 = System.nanoTime();
+
+            List<Game> batch = new ArrayList<>(IMPORT_BATCH);
+            for (int i = 0; i < archived; i++) {
+                Game g = newGame(i, now);
+                g.setResult(i % 3 == 0 ? Result.DRAW : (i % 2 == 0 ? Result.WHITE_WIN : Result.BLACK_WIN));
+                g.setResultReason("bench");
+                batch.add(g);
+                if (batch.size() == IMPORT_BATCH) {
+                    stores.importFinishedGames(batch);
+                    batch.clear();
+                }
+            }
+            stores.importFinishedGames(batch);
+
+            for (int i = 0; i < ongoing; i++) {
+                stores.saveGame(newGame(archived + i, now));
+            }
+            System.out.printf("seeded %d archived + %d ongoing games in %.1f s%n",
+                    archived, ongoing, (System.nanoTime() - t0) / 1e9);
+        }
+    }
+
+    private static Game newGame(int i, long now) {
+        Game g = new Game();
+        g.setId(UUID.randomUUID().toString());
+        g.setWhiteUser("w" + (i % 1000));
+        g.setBlackUser("b" + (i % 1000));
+        g.setCreatedAt(now);
+        g.setLastUpdate(now);
+        return g;
+    }
+}
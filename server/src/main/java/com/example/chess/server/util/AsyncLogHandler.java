@@ -0,0 +1,170 @@
+package com.example.chess.server.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Moves formatting and I/O off the logging thread: {@link #publish} only puts the record into a
+ * bounded ring, and the "log-writer" thread formats whole batches and hands each batch to the
+ * targets as one pre-formatted record, so a file sees one write and flush per batch instead of per
+ * line. When the ring is full the record is dropped (and counted) or the caller blocks, per policy.
+ */
+final class AsyncLogHandler extends Handler {
+
+    enum Policy { DROP, BLOCK }
+
+    private static final LogRecord STOP = new LogRecord(Level.OFF, "");
+
+    private final BlockingQueue<LogRecord> ring;
+    private final Policy policy;
+    private final int maxBatch;
+    private final List<Handler> targets;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+    private long droppedReported; // writer thread only
+
+    /** {@code targets} must use {@link #passThrough()} as their formatter; this handler formats. */
+    AsyncLogHandler(List<Handler> targets, int capacity, Policy policy, int maxBatch) {
+        if (capacity <= 0 || maxBatch <= 0) throw new IllegalArgumentException("capacity and maxBatch must be positive.");
+        this.ring = new ArrayBlockingQueue<>(capacity);
+        this.policy = policy;
+        this.maxBatch = maxBatch;
+        this.targets = List.copyOf(targets);
+        this.writer = new Thread(this::drainLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    static Policy parsePolicy(String raw) {
+        try {
+            return Policy.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (Exception e) {
+            return Policy.DROP;
+        }
+    }
+
+    /** Formatter for the targets: the record already holds a formatted batch. */
+    static Formatter passThrough() {
+        return new Formatter() {
+            @Override
+            public String format(LogRecord record) {
+                return record.getMessage();
+            }
+        };
+    }
+
+    long droppedCount() {
+        return dropped.get();
+    }
+
+    int queueDepth() {
+        return ring.size();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) return;
+        if (policy == Policy.DROP) {
+            if (!ring.offer(record)) dropped.incrementAndGet();
+            return;
+        }
+        try {
+            ring.put(record);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Batches are flushed as they are written; close() drains what is left.
+    }
+
+    /** Stops accepting records, writes everything already queued (up to 5 s), then closes the targets. */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            if (!ring.offer(STOP, 5, TimeUnit.SECONDS)) writer.interrupt();
+            writer.join(5_000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Handler h : targets) {
+            try {
+                h.close();
+            } catch (Exception e) {
+                reportError("Failed to close log target.", e, ErrorManager.CLOSE_FAILURE);
+            }
+        }
+    }
+
+    private void drainLoop() {
+        List<LogRecord> batch = new ArrayList<>(maxBatch);
+        StringBuilder text = new StringBuilder(8 * 1024);
+        while (true) {
+            try {
+                batch.add(ring.take());
+            } catch (InterruptedException e) {
+                if (closed) return;
+                continue;
+            }
+            ring.drainTo(batch, maxBatch - 1);
+
+            boolean stop = false;
+            text.setLength(0);
+            Level highest = Level.ALL;
+            for (LogRecord r : batch) {
+                if (r == STOP) {
+                    stop = true;
+                    continue;
+                }
+                try {
+                    text.append(getFormatter().format(r));
+                } catch (RuntimeException e) {
+                    reportError("Failed to format log record.", e, ErrorManager.FORMAT_FAILURE);
+                }
+                if (r.getLevel().intValue() > highest.intValue()) highest = r.getLevel();
+            }
+            batch.clear();
+            appendDropNotice(text);
+            if (text.length() > 0) write(highest, text.toString());
+            if (stop) return;
+        }
+    }
+
+    private void appendDropNotice(StringBuilder text) {
+        long total = dropped.get();
+        if (total == droppedReported) return;
+        LogRecord notice = new LogRecord(Level.WARNING,
+                (total - droppedReported) + " log message(s) dropped, log ring buffer was full");
+        notice.setLoggerName("ChessServer");
+        text.append(getFormatter().format(notice));
+        droppedReported = total;
+    }
+
+    private void write(Level level, String text) {
+        LogRecord batch = new LogRecord(level, text);
+        for (Handler h : targets) {
+            try {
+                h.publish(batch);
+                h.flush();
+            } catch (Exception e) {
+                reportError("Failed to write log batch.", e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.chess.server.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JFR events for the server's hot paths, so a flight recording lines up moves, disk writes and pushes
+ * with GC pauses and lock contention. Emitting is a field check while no recording listens; callers
+ * that would otherwise build a payload check {@code shouldCommit()} or the cached type first.
+ */
+public final class FlightEvents {
+
+    private FlightEvents() {}
+
+    @Name("chess.MoveProcessed")
+    @Label("Move Processed")
+    @Category({"Chess Server", "Game"})
+    @Description("One makeMove command from mailbox entry to push, with the time spent in each stage.")
+    @StackTrace(false)
+    public static final class MoveProcessed extends Event {
+        private static final EventType TYPE = EventType.getEventType(MoveProcessed.class);
+
+        @Label("Game Id") public String gameId;
+        @Label("Move") public String move;
+        @Label("Legal") @Description("False when the move was rejected.") public boolean legal;
+        @Label("Rejection") public String rejection;
+        @Label("Queue") @Timespan public long queueNanos;
+        @Label("Parse") @Timespan public long parseNanos;
+        @Label("Validate") @Timespan public long validateNanos;
+        @Label("Self Check") @Timespan public long selfCheckNanos;
+        @Label("Apply") @Timespan public long applyNanos;
+        @Label("Mate Detection") @Timespan public long mateDetectionNanos;
+        @Label("Persist") @Timespan public long persistNanos;
+        @Label("Push") @Timespan public long pushNanos;
+
+        /** Cheap enough to ask per move; true only while a recording has this event switched on. */
+        public static boolean enabled() {
+            return TYPE.isEnabled();
+        }
+    }
+
+    @Name("chess.GameStarted")
+    @Label("Game Started")
+    @Category({"Chess Server", "Game"})
+    @StackTrace(false)
+    public static final class GameStarted extends Event {
+        @Label("Game Id") public String gameId;
+        @Label("White") public String white;
+        @Label("Black") public String black;
+        @Label("Base Time") @Timespan(Timespan.MILLISECONDS) public long baseMs;
+        @Label("Increment") @Timespan(Timespan.MILLISECONDS) public long incrementMs;
+    }
+
+    @Name("chess.GameFinished")
+    @Label("Game Finished")
+    @Category({"Chess Server", "Game"})
+    @StackTrace(false)
+    public static final class GameFinished extends Event {
+        @Label("Game Id") public String gameId;
+        @Label("Result") public String result;
+        @Label("Reason") public String reason;
+        @Label("Rated") public boolean rated;
+        @Label("Plies") public int plies;
+        @Label("Game Length") @Timespan(Timespan.MILLISECONDS) public long lengthMs;
+        @Label("Persisted") public boolean persisted;
+    }
+
+    @Name("chess.PersistenceWrite")
+    @Label("Persistence Write")
+    @Category({"Chess Server", "Storage"})
+    @Description("Atomic file write: temp file, fsync, rename and directory fsync.")
+    @StackTrace(false)
+    public static final class PersistenceWrite extends Event {
+        @Label("Path") public String path;
+        @Label("Size") @DataAmount public long bytes;
+        @Label("Fsync Time") @Timespan public long fsyncNanos;
+    }
+
+    @Name("chess.PushSent")
+    @Label("Push Sent")
+    @Category({"Chess Server", "Network"})
+    @StackTrace(false)
+    public static final class PushSent extends Event {
+        @Label("Size") @DataAmount public long bytes;
+        @Label("Queue Wait") @Timespan public long queueWaitNanos;
+    }
+
+    @Name("chess.RateLimited")
+    @Label("Rate Limit Rejection")
+    @Category({"Chess Server", "Network"})
+    @StackTrace(false)
+    public static final class RateLimited extends Event {
+        @Label("Limiter") @Description("connection or ip") public String limiter;
+        @Label("Client Ip") public String clientIp;
+        @Label("User") public String user;
+        @Label("Request Type") public String requestType;
+    }
+
+    /** Commits a {@link PushSent} that has already been begun around the socket write. */
+    public static void commitPush(PushSent event, String line, long queueWaitNanos) {
+        if (!event.shouldCommit()) return;
+        event.bytes = line.getBytes(StandardCharsets.UTF_8).length;
+        event.queueWaitNanos = queueWaitNanos;
+        event.commit();
+    }
+
+    public static void rateLimited(String limiter, String clientIp, String user, String requestType) {
+        RateLimited event = new RateLimited();
+        if (!event.isEnabled()) return;
+        event.limiter = limiter;
+        event.clientIp = clientIp;
+        event.user = user;
+        event.requestType = requestType;
+        event.commit();
+    }
+}
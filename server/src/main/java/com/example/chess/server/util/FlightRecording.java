@@ -0,0 +1,70 @@
+package com.example.chess.server.util;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Optional always-on JFR recording (chess.jfr.enabled). It keeps the last {@code chess.jfr.maxAgeSeconds}
+ * / {@code chess.jfr.maxSizeMb} as a ring on disk and dumps it on shutdown, so the minutes before an
+ * incident can be pulled with {@code jcmd <pid> JFR.dump name=chess} or read from the dump file.
+ */
+public final class FlightRecording implements AutoCloseable {
+    private static final String NAME = "chess";
+
+    private final Recording recording;
+    private final Path dumpPath;
+
+    private FlightRecording(Recording recording, Path dumpPath) {
+        this.recording = recording;
+        this.dumpPath = dumpPath;
+    }
+
+    /** Starts the recording when enabled; null otherwise or when JFR is unavailable. */
+    public static FlightRecording startIfEnabled() {
+        if (!Boolean.getBoolean("chess.jfr.enabled")) return null;
+
+        long maxAgeSeconds = Math.max(1L, Long.getLong("chess.jfr.maxAgeSeconds", 900L));
+        long maxSizeMb = Math.max(1L, Long.getLong("chess.jfr.maxSizeMb", 128L));
+        Path dumpPath = Path.of(System.getProperty("chess.jfr.dumpFile", "chess-server.jfr"));
+        try {
+            Recording r = new Recording(Configuration.getConfiguration(System.getProperty("chess.jfr.settings", "default")));
+            r.setName(NAME);
+            r.setToDisk(true);
+            r.setMaxAge(Duration.ofSeconds(maxAgeSeconds));
+            r.setMaxSize(maxSizeMb * 1024L * 1024L);
+            r.setDumpOnExit(false); // dumped by close() so the file has the chess events up to shutdown
+            r.enable(FlightEvents.MoveProcessed.class);
+            r.enable(FlightEvents.GameStarted.class);
+            r.enable(FlightEvents.GameFinished.class);
+            r.enable(FlightEvents.PersistenceWrite.class);
+            r.enable(FlightEvents.PushSent.class);
+            r.enable(FlightEvents.RateLimited.class);
+            r.start();
+            Log.info("JFR recording '" + NAME + "' started (maxAge " + maxAgeSeconds + "s, maxSize " + maxSizeMb
+                    + " MB, dump " + dumpPath.toAbsolutePath() + ").");
+            return new FlightRecording(r, dumpPath);
+        } catch (Exception | LinkageError e) {
+            Log.warn("Failed to start JFR recording, continuing without it.", e);
+            return null;
+        }
+    }
+
+    /** Writes the current ring to the dump file, then stops recording. */
+    @Override
+    public void close() {
+        try {
+            Path dir = dumpPath.toAbsolutePath().getParent();
+            if (dir != null) Files.createDirectories(dir);
+            recording.dump(dumpPath);
+            Log.info("JFR recording dumped to " + dumpPath.toAbsolutePath());
+        } catch (Exception e) {
+            Log.warn("Failed to dump JFR recording to " + dumpPath, e);
+        } finally {
+            recording.close();
+        }
+    }
+}
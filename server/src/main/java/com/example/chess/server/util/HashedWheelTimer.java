@@ -0,0 +1,189 @@
+package com.example.chess.server.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hashed timing wheel: {@link #schedule} and {@link Timeout#cancel} are O(1) and may be called from any thread.
+ * New timeouts go through a lock-free queue and are placed into buckets by the single worker thread, which
+ * advances one bucket per tick and runs the tasks that are due. Deadlines fire at most one tick late.
+ * Tasks run on the worker thread and must be short.
+ */
+public final class HashedWheelTimer implements AutoCloseable {
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<Timeout>[] wheel;
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong fired = new AtomicLong();
+    private final AtomicLong lastLagMs = new AtomicLong();
+    private final AtomicLong maxLagMs = new AtomicLong();
+    private final LatencyHistogram tickLagMicros = new LatencyHistogram();
+
+    @SuppressWarnings("unchecked")
+    public HashedWheelTimer(String threadName, long tickMs, int wheelSize) {
+        if (tickMs <= 0) throw new IllegalArgumentException("tickMs must be positive.");
+        if (wheelSize <= 0) throw new IllegalArgumentException("wheelSize must be positive.");
+
+        int size = 1;
+        while (size < wheelSize) size <<= 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.mask = size - 1;
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) wheel[i] = new ArrayList<>();
+
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /** Runs {@code task} on the timer thread once {@code delayMs} has elapsed. */
+    public Timeout schedule(Runnable task, long delayMs) {
+        if (task == null) throw new IllegalArgumentException("Missing task.");
+        long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs));
+        Timeout t = new Timeout(this, task, deadline);
+        pending.incrementAndGet();
+        incoming.add(t);
+        return t;
+    }
+
+    /** Timeouts that have neither fired nor been cancelled. */
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    public long firedCount() {
+        return fired.get();
+    }
+
+    /** How late the most recent timeout fired past its deadline (ms). */
+    public long lastLagMs() {
+        return lastLagMs.get();
+    }
+
+    public long maxLagMs() {
+        return maxLagMs.get();
+    }
+
+    /** How far each tick started past its scheduled time (us); grows when the worker is starved or busy. */
+    public LatencyHistogram tickLag() {
+        return tickLagMicros;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        long tick = 0;
+        while (running) {
+            long tickEnd = tickNanos * (tick + 1);
+            long sleepNanos = tickEnd - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) return;
+                    continue;
+                }
+            }
+            tickLagMicros.record(TimeUnit.NANOSECONDS.toMicros(Math.max(0L, System.nanoTime() - startNanos - tickEnd)));
+
+            transferIncoming(tick);
+            expireBucket(wheel[(int) (tick & mask)], tickEnd);
+            tick++;
+        }
+    }
+
+    private void transferIncoming(long currentTick) {
+        // Bounded so a flood of schedules cannot starve the tick.
+        for (int i = 0; i < 100_000; i++) {
+            Timeout t = incoming.poll();
+            if (t == null) return;
+            if (t.state.get() != PENDING) continue;
+
+            long ticks = Math.max(t.deadlineNanos / tickNanos, currentTick);
+            t.remainingRounds = (ticks - currentTick) / wheel.length;
+            List<Timeout> bucket = wheel[(int) (ticks & mask)];
+            synchronized (bucket) {
+                bucket.add(t);
+            }
+        }
+    }
+
+    private void expireBucket(List<Timeout> bucket, long tickEnd) {
+        List<Timeout> due = null;
+        synchronized (bucket) {
+            int keep = 0;
+            for (int i = 0; i < bucket.size(); i++) {
+                Timeout t = bucket.get(i);
+                if (t.state.get() == CANCELLED) continue;
+                if (t.remainingRounds <= 0 && t.deadlineNanos <= tickEnd) {
+                    if (due == null) due = new ArrayList<>();
+                    due.add(t);
+                    continue;
+                }
+                if (t.remainingRounds > 0) t.remainingRounds--;
+                bucket.set(keep++, t);
+            }
+            bucket.subList(keep, bucket.size()).clear();
+        }
+        if (due == null) return;
+
+        for (Timeout t : due) {
+            if (!t.state.compareAndSet(PENDING, EXPIRED)) continue;
+            pending.decrementAndGet();
+            fired.incrementAndGet();
+            long lag = TimeUnit.NANOSECONDS.toMillis(Math.max(0L, System.nanoTime() - startNanos - t.deadlineNanos));
+            lastLagMs.set(lag);
+            maxLagMs.accumulateAndGet(lag, Math::max);
+            try {
+                t.task.run();
+            } catch (Throwable e) {
+                Log.warn("Timer task failed", e);
+            }
+        }
+    }
+
+    public static final class Timeout {
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long remainingRounds; // worker thread only
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadlineNanos) {
+            this.timer = timer;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /** Returns true if the task had not fired yet and now never will. */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) return false;
+            timer.pending.decrementAndGet();
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.chess.server.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram: each power of two is split into 8 linear sub-buckets, so any
+ * recorded value is reported within 12.5%. Values are unit-less; callers pick one (e.g. micros).
+ * Count, sum and max use striped cells, since every recording thread updates them.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int MAX_MAGNITUDE = 40; // ~12 days in micros, larger values land in the last bucket
+    private static final int BUCKETS = (MAX_MAGNITUDE - SUB_BITS + 2) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /** Upper bound of the bucket holding the {@code q}-quantile (0..1), capped at the recorded max; 0 if empty. */
+    public long percentile(double q) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += counts.get(i);
+        if (total == 0) return 0L;
+
+        long rank = Math.max(1L, (long) Math.ceil(Math.min(1.0, Math.max(0.0, q)) * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Cumulative counts for ascending {@code bounds} (Prometheus {@code le} buckets), plus the total as
+     * the last element. A bucket straddling a bound is counted under the next bound up.
+     */
+    public long[] cumulativeCounts(long[] bounds) {
+        return cumulativeCounts(bounds, new long[bounds.length + 1]);
+    }
+
+    /** Same as {@link #cumulativeCounts(long[])}, filling {@code out} (length {@code bounds.length + 1}). */
+    public long[] cumulativeCounts(long[] bounds, long[] out) {
+        if (out.length != bounds.length + 1) throw new IllegalArgumentException("out must have bounds.length + 1 slots.");
+        int b = 0;
+        long running = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i);
+            if (c == 0) continue;
+            long upper = upperBound(i);
+            while (b < bounds.length && upper > bounds[b]) out[b++] = running;
+            running += c;
+        }
+        while (b < bounds.length) out[b++] = running;
+        out[bounds.length] = running;
+        return out;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB) return (int) value;
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude > MAX_MAGNITUDE) return BUCKETS - 1;
+        int sub = (int) ((value >>> (magnitude - SUB_BITS)) & (SUB - 1));
+        return (magnitude - SUB_BITS + 1) * SUB + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB) return index;
+        int magnitude = index / SUB + SUB_BITS - 1;
+        int sub = index % SUB;
+        int shift = magnitude - SUB_BITS;
+        return ((long) (SUB + sub) << shift) + (1L << shift) - 1;
+    }
+}
@@ -2,10 +2,13 @@ package com.example.chess.server.util;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
@@ -19,6 +22,7 @@ public final class Log {
     private static final Logger L = Logger.getLogger("ChessServer");
     private static final AtomicBoolean INIT = new AtomicBoolean(false);
     private static final ThreadLocal<Context> CTX = new ThreadLocal<>();
+    private static volatile AsyncLogHandler async;
 
     private Log() {}
 
@@ -29,13 +33,13 @@ public final class Log {
         L.setLevel(level);
         L.setUseParentHandlers(false);
 
-        Formatter formatter = new PlainFormatter();
+        Formatter formatter = "json".equalsIgnoreCase(System.getProperty("chess.log.format", "plain").trim())
+                ? new JsonFormatter() : new PlainFormatter();
+        boolean asyncEnabled = Boolean.parseBoolean(System.getProperty("chess.log.async", "true"));
+        List<Handler> targets = new ArrayList<>();
 
         if (Boolean.parseBoolean(System.getProperty("chess.log.console", "true"))) {
-            ConsoleHandler console = new ConsoleHandler();
-            console.setLevel(level);
-            console.setFormatter(formatter);
-            L.addHandler(console);
+            targets.add(new ConsoleHandler());
         }
 
         int maxBytes = parseInt(System.getProperty("chess.log.maxBytes", "10485760"), 10485760);
@@ -45,14 +49,44 @@ public final class Log {
             try {
                 Files.createDirectories(Path.of(logDir));
                 String pattern = Path.of(logDir, "server-%g.log").toString();
-                FileHandler file = new FileHandler(pattern, maxBytes, fileCount, true);
-                file.setLevel(level);
-                file.setFormatter(formatter);
-                L.addHandler(file);
+                targets.add(new FileHandler(pattern, maxBytes, fileCount, true));
             } catch (Exception e) {
                 L.log(Level.WARNING, "Failed to initialize file logging.", e);
             }
         }
+
+        if (!asyncEnabled) {
+            for (Handler h : targets) {
+                h.setLevel(level);
+                h.setFormatter(formatter);
+                L.addHandler(h);
+            }
+            return;
+        }
+        for (Handler h : targets) {
+            h.setLevel(Level.ALL); // filtered and formatted by the async handler
+            h.setFormatter(AsyncLogHandler.passThrough());
+        }
+        AsyncLogHandler handler = new AsyncLogHandler(targets,
+                Math.max(1, parseInt(System.getProperty("chess.log.async.capacity", "8192"), 8192)),
+                AsyncLogHandler.parsePolicy(System.getProperty("chess.log.async.policy", "drop")),
+                Math.max(1, parseInt(System.getProperty("chess.log.async.batch", "256"), 256)));
+        handler.setLevel(level);
+        handler.setFormatter(formatter);
+        L.addHandler(handler);
+        async = handler;
+    }
+
+    /** Records dropped because the async log ring was full; 0 when logging is synchronous. */
+    public static long droppedCount() {
+        AsyncLogHandler h = async;
+        return h == null ? 0L : h.droppedCount();
+    }
+
+    /** Records waiting for the log-writer thread. */
+    public static long queueDepth() {
+        AsyncLogHandler h = async;
+        return h == null ? 0L : h.queueDepth();
     }
 
     public static void shutdown() {
@@ -78,11 +112,23 @@ public final class Log {
     }
 
     public static void info(String msg) {
-        L.log(Level.INFO, msg);
+        log(Level.INFO, msg, null);
     }
 
     public static void warn(String msg, Throwable t) {
-        L.log(Level.WARNING, msg, t);
+        log(Level.WARNING, msg, t);
+    }
+
+    public static void error(String msg, Throwable t) {
+        log(Level.SEVERE, msg, t);
+    }
+
+    private static void log(Level level, String msg, Throwable t) {
+        if (!L.isLoggable(level)) return;
+        CapturedRecord r = new CapturedRecord(level, msg, Thread.currentThread().getName(), CTX.get());
+        r.setLoggerName(L.getName());
+        r.setThrown(t);
+        L.log(r);
     }
 
     private static int parseInt(String value, int fallback) {
@@ -119,6 +165,18 @@ public final class Log {
         }
     }
 
+    /** Keeps the caller's thread name and context, which are gone by the time an async writer formats it. */
+    private static final class CapturedRecord extends LogRecord {
+        final String threadName;
+        final Context context;
+
+        CapturedRecord(Level level, String msg, String threadName, Context context) {
+            super(level, msg);
+            this.threadName = threadName;
+            this.context = context;
+        }
+    }
+
     public static final class ContextScope implements AutoCloseable {
         private final Context prev;
 
@@ -144,11 +202,11 @@ public final class Log {
             sb.append(' ');
             sb.append(record.getLoggerName());
             sb.append(" [");
-            sb.append(Thread.currentThread().getName());
+            sb.append(record instanceof CapturedRecord c ? c.threadName : Thread.currentThread().getName());
             sb.append("] ");
             sb.append(formatMessage(record));
 
-            Context ctx = currentContext();
+            Context ctx = record instanceof CapturedRecord c ? c.context : currentContext();
             if (ctx != null) {
                 appendField(sb, "corrId", ctx.corrId);
                 appendField(sb, "clientIp", ctx.clientIp);
@@ -181,4 +239,105 @@ public final class Log {
             sb.append(value);
         }
     }
+
+    /**
+     * One JSON object per line: ts, level, logger, thread, msg, then corrId/clientIp/user when set and
+     * error with the stack trace. Each thread reuses its own pre-sized buffer and escapes straight into
+     * it, so a line costs one final String.
+     */
+    static final class JsonFormatter extends Formatter {
+        private static final DateTimeFormatter TS = DateTimeFormatter.ISO_INSTANT;
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+        private static final int MAX_RETAINED = 64 * 1024;
+        private static final ThreadLocal<Encoder> ENCODER = ThreadLocal.withInitial(Encoder::new);
+
+        @Override
+        public String format(LogRecord record) {
+            Encoder enc = ENCODER.get();
+            StringBuilder sb = enc.begin();
+
+            sb.append("{\"ts\":\"");
+            TS.formatTo(record.getInstant(), sb);
+            sb.append('"');
+            field(sb, "level", record.getLevel().getName());
+            field(sb, "logger", record.getLoggerName());
+            field(sb, "thread", record instanceof CapturedRecord c ? c.threadName : Thread.currentThread().getName());
+            field(sb, "msg", formatMessage(record));
+
+            Context ctx = record instanceof CapturedRecord c ? c.context : currentContext();
+            if (ctx != null) {
+                field(sb, "corrId", ctx.corrId);
+                field(sb, "clientIp", ctx.clientIp);
+                field(sb, "user", ctx.username);
+            }
+
+            Throwable thrown = record.getThrown();
+            if (thrown != null) {
+                sb.append(",\"error\":\"");
+                thrown.printStackTrace(enc.escaping);
+                enc.escaping.flush();
+                sb.append('"');
+            }
+            sb.append("}\n");
+            return enc.finish();
+        }
+
+        private static void field(StringBuilder sb, String key, String value) {
+            if (value == null) return;
+            sb.append(",\"").append(key).append("\":\"");
+            escape(sb, value);
+            sb.append('"');
+        }
+
+        static void escape(StringBuilder sb, CharSequence s) {
+            for (int i = 0; i < s.length(); i++) escape(sb, s.charAt(i));
+        }
+
+        private static void escape(StringBuilder sb, char c) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+
+        /** Per-thread line buffer plus a writer that escapes stack traces into it. */
+        private static final class Encoder {
+            private StringBuilder sb = new StringBuilder(1024);
+            private final PrintWriter escaping = new PrintWriter(new Writer() {
+                @Override
+                public void write(char[] buf, int off, int len) {
+                    for (int i = off; i < off + len; i++) escape(sb, buf[i]);
+                }
+
+                @Override
+                public void write(String str, int off, int len) {
+                    for (int i = off; i < off + len; i++) escape(sb, str.charAt(i));
+                }
+
+                @Override public void flush() {}
+                @Override public void close() {}
+            });
+
+            StringBuilder begin() {
+                sb.setLength(0);
+                return sb;
+            }
+
+            String finish() {
+                String line = sb.toString();
+                if (sb.capacity() > MAX_RETAINED) sb = new StringBuilder(1024); // don't pin one huge trace
+                return line;
+            }
+        }
+    }
 }
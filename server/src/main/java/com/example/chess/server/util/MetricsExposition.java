@@ -0,0 +1,345 @@
+package com.example.chess.server.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Renders {@link ServerMetrics} as Prometheus text (0.0.4) or OpenMetrics 1.0 into one reusable byte
+ * buffer. Family headers and series prefixes ({@code name{label="value"} }) are encoded once, when a
+ * series is first registered, so a scrape only reads values and writes digits. Not thread-safe.
+ */
+final class MetricsExposition {
+
+    enum Format {
+        PROMETHEUS("text/plain; version=0.0.4; charset=utf-8"),
+        OPENMETRICS("application/openmetrics-text; version=1.0.0; charset=utf-8");
+
+        final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+    }
+
+    static final long[] LATENCY_BOUNDS_US = {
+            10, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000};
+    private static final String[] LATENCY_BOUND_LABELS = {
+            "0.00001", "0.00005", "0.0001", "0.00025", "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5"};
+    private static final byte[] EOF = utf8("# EOF\n");
+
+    private final ServerMetrics metrics;
+    private final Buffer out = new Buffer(16 * 1024);
+    private final long[] cumulative = new long[LATENCY_BOUNDS_US.length + 1];
+    private final List<Family> builtIn = new ArrayList<>();
+    private final List<Family> registered = new ArrayList<>();
+    private int registeredGauges = -1;
+    private int registeredCounters = -1;
+    private int registeredHistograms = -1;
+
+    MetricsExposition(ServerMetrics metrics) {
+        this.metrics = metrics;
+        Runtime rt = Runtime.getRuntime();
+
+        gauge("chess_connections_current", "Current open connections.", metrics::connectionsCurrent);
+        counter("chess_connections_total", "Total connections since start.", metrics::connectionsTotal);
+        counter("chess_requests_total", "Total requests since start.", metrics::requestsTotal);
+        counter("chess_requests_errors_total", "Total request errors since start.", metrics::errorsTotal);
+        counter("chess_requests_rate_limited_total", "Total rate limited requests.", metrics::rateLimitedTotal);
+        counter("chess_requests_invalid_total", "Total invalid requests.", metrics::invalidTotal);
+        gauge("chess_online_users", "Current online users.", metrics::onlineUsers);
+        gauge("chess_matchmaking_queue", "Current matchmaking queue size.", metrics::matchmakingQueue);
+        gauge("chess_active_games", "Current active games.", metrics::activeGames);
+        gauge("chess_heap_used_bytes", "Current heap used in bytes.", () -> rt.totalMemory() - rt.freeMemory());
+        gauge("chess_heap_committed_bytes", "Current heap committed in bytes.", rt::totalMemory);
+        gauge("chess_heap_max_bytes", "Max heap size in bytes.", rt::maxMemory);
+        gauge("chess_available_processors", "Available processors.", rt::availableProcessors);
+        gauge("chess_uptime_ms", "Uptime in milliseconds.", metrics::uptimeMs);
+        gauge("chess_last_request_timestamp_ms", "Last request timestamp (ms).", metrics::lastRequestAtMs);
+        builtIn.add(new Family("chess_heap_used_pct", "Heap used percentage.", "gauge", List.of(
+                new ValueSeries(utf8("chess_heap_used_pct "), () -> heapUsedPctMicros(rt), true, false))));
+
+        RequestType[] types = RequestType.values().clone();
+        Arrays.sort(types, Comparator.comparing(RequestType::wireName));
+        List<Series> byType = new ArrayList<>();
+        List<Series> durations = new ArrayList<>();
+        for (RequestType t : types) {
+            byType.add(new ValueSeries(seriesPrefix("chess_requests_by_type_total", "type", t.wireName()),
+                    () -> metrics.requestCount(t), false, true));
+            byType.add(new ValueSeries(seriesPrefix("chess_requests_by_type_total", "type", t.wireName() + "_error"),
+                    () -> metrics.errorCount(t), false, true));
+            if (t != RequestType.OTHER) {
+                durations.add(new HistogramSeries("chess_request_duration_seconds", "type", t.wireName(),
+                        metrics.latency(t), true));
+            }
+        }
+        builtIn.add(new Family("chess_requests_by_type_total", "Requests by type.", "counter", byType));
+        builtIn.add(new Family("chess_request_duration_seconds", "Request handling time by type.", "histogram", durations));
+    }
+
+    /** Renders every family into the shared buffer, which stays valid until the next call. */
+    Buffer render(Format format) {
+        refreshRegistered();
+        out.reset();
+        for (Family f : builtIn) f.write(this, format);
+        for (Family f : registered) f.write(this, format);
+        if (format == Format.OPENMETRICS) out.write(EOF);
+        return out;
+    }
+
+    /** Re-encodes registered families only when something new was registered since the last scrape. */
+    private void refreshRegistered() {
+        if (metrics.gaugeCount() == registeredGauges && metrics.counterCount() == registeredCounters
+                && metrics.histogramCount() == registeredHistograms) return;
+
+        List<ServerMetrics.LabeledHistogram> histograms = new ArrayList<>(metrics.histograms());
+        List<ServerMetrics.LabeledGauge> gauges = new ArrayList<>(metrics.gauges());
+        List<ServerMetrics.LabeledCounter> counters = new ArrayList<>(metrics.counters());
+        registeredHistograms = histograms.size();
+        registeredGauges = gauges.size();
+        registeredCounters = counters.size();
+        histograms.sort(Comparator.comparing(ServerMetrics.LabeledHistogram::name)); // stable per family
+        gauges.sort(Comparator.comparing(ServerMetrics.LabeledGauge::name));
+        counters.sort(Comparator.comparing(ServerMetrics.LabeledCounter::name));
+
+        registered.clear();
+        for (int i = 0; i < histograms.size(); ) {
+            ServerMetrics.LabeledHistogram first = histograms.get(i);
+            List<Series> series = new ArrayList<>();
+            for (; i < histograms.size() && histograms.get(i).name().equals(first.name()); i++) {
+                ServerMetrics.LabeledHistogram h = histograms.get(i);
+                series.add(new HistogramSeries(h.name(), h.label(), h.labelValue(), h.histogram(), false));
+            }
+            registered.add(new Family(first.name(), first.help(), "histogram", series));
+        }
+        for (int i = 0; i < gauges.size(); ) {
+            ServerMetrics.LabeledGauge first = gauges.get(i);
+            List<Series> series = new ArrayList<>();
+            for (; i < gauges.size() && gauges.get(i).name().equals(first.name()); i++) {
+                ServerMetrics.LabeledGauge g = gauges.get(i);
+                series.add(new ValueSeries(seriesPrefix(g.name(), g.label(), g.labelValue()), g::read, false, false));
+            }
+            registered.add(new Family(first.name(), first.help(), "gauge", series));
+        }
+        for (int i = 0; i < counters.size(); ) {
+            ServerMetrics.LabeledCounter first = counters.get(i);
+            List<Series> series = new ArrayList<>();
+            for (; i < counters.size() && counters.get(i).name().equals(first.name()); i++) {
+                ServerMetrics.LabeledCounter c = counters.get(i);
+                series.add(new ValueSeries(seriesPrefix(c.name(), c.label(), c.labelValue()), c::read, false, false));
+            }
+            registered.add(new Family(first.name(), first.help(), "counter", series));
+        }
+    }
+
+    private void gauge(String name, String help, LongSupplier value) {
+        builtIn.add(new Family(name, help, "gauge", List.of(new ValueSeries(utf8(name + " "), value, false, false))));
+    }
+
+    private void counter(String name, String help, LongSupplier value) {
+        builtIn.add(new Family(name, help, "counter", List.of(new ValueSeries(utf8(name + " "), value, false, false))));
+    }
+
+    private static long heapUsedPctMicros(Runtime rt) {
+        long max = rt.maxMemory();
+        if (max <= 0) return 0L;
+        return Math.round((rt.totalMemory() - rt.freeMemory()) * 100.0 / max * 1_000_000.0);
+    }
+
+    /** HELP/TYPE lines of one family, written only if at least one of its series is. */
+    private static final class Family {
+        private final byte[] prometheusHeader;
+        private final byte[] openMetricsHeader;
+        private final Series[] series;
+
+        Family(String name, String help, String type, List<Series> series) {
+            this.prometheusHeader = utf8(header(name, help, type, false));
+            // OpenMetrics names a counter family without the _total its samples carry.
+            String omName = "counter".equals(type) && name.endsWith("_total")
+                    ? name.substring(0, name.length() - "_total".length()) : name;
+            this.openMetricsHeader = utf8(header(omName, help, type, true));
+            this.series = series.toArray(new Series[0]);
+        }
+
+        void write(MetricsExposition x, Format format) {
+            int mark = x.out.size();
+            x.out.write(format == Format.OPENMETRICS ? openMetricsHeader : prometheusHeader);
+            boolean any = false;
+            for (Series s : series) any |= s.write(x);
+            if (!any) x.out.truncate(mark);
+        }
+
+        private static String header(String name, String help, String type, boolean openMetrics) {
+            String escaped = help.replace("\\", "\\\\").replace("\n", "\\n");
+            if (openMetrics) escaped = escaped.replace("\"", "\\\"");
+            return "# HELP " + name + ' ' + escaped + "\n# TYPE " + name + ' ' + type + '\n';
+        }
+    }
+
+    private interface Series {
+        /** Appends the series' lines; false if it chose to stay hidden this scrape. */
+        boolean write(MetricsExposition x);
+    }
+
+    private record ValueSeries(byte[] prefix, LongSupplier value, boolean micros, boolean skipZero) implements Series {
+        @Override
+        public boolean write(MetricsExposition x) {
+            long v = value.getAsLong();
+            if (skipZero && v == 0) return false;
+            x.out.write(prefix);
+            if (micros) x.out.writeMicros(v);
+            else x.out.writeLong(v);
+            x.out.write((byte) '\n');
+            return true;
+        }
+    }
+
+    /** One histogram series in microseconds, exported in seconds with the fixed latency buckets. */
+    private static final class HistogramSeries implements Series {
+        private final byte[][] bucketPrefixes = new byte[LATENCY_BOUNDS_US.length + 1][];
+        private final byte[] sumPrefix;
+        private final byte[] countPrefix;
+        private final LatencyHistogram histogram;
+        private final boolean skipEmpty;
+
+        HistogramSeries(String name, String label, String labelValue, LatencyHistogram histogram, boolean skipEmpty) {
+            String labels = label == null ? "" : label + "=\"" + escapeLabel(labelValue) + "\",";
+            for (int i = 0; i < LATENCY_BOUNDS_US.length; i++) {
+                bucketPrefixes[i] = utf8(name + "_bucket{" + labels + "le=\"" + LATENCY_BOUND_LABELS[i] + "\"} ");
+            }
+            bucketPrefixes[LATENCY_BOUNDS_US.length] = utf8(name + "_bucket{" + labels + "le=\"+Inf\"} ");
+            String plain = label == null ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+            this.sumPrefix = utf8(name + "_sum" + plain + ' ');
+            this.countPrefix = utf8(name + "_count" + plain + ' ');
+            this.histogram = histogram;
+            this.skipEmpty = skipEmpty;
+        }
+
+        @Override
+        public boolean write(MetricsExposition x) {
+            if (skipEmpty && histogram.count() == 0) return false;
+            long[] cumulative = histogram.cumulativeCounts(LATENCY_BOUNDS_US, x.cumulative);
+            Buffer out = x.out;
+            for (int i = 0; i < bucketPrefixes.length; i++) {
+                out.write(bucketPrefixes[i]);
+                out.writeLong(cumulative[i]);
+                out.write((byte) '\n');
+            }
+            out.write(sumPrefix);
+            out.writeMicros(histogram.sum());
+            out.write((byte) '\n');
+            out.write(countPrefix);
+            out.writeLong(cumulative[LATENCY_BOUNDS_US.length]);
+            out.write((byte) '\n');
+            return true;
+        }
+    }
+
+    /** Growable byte buffer that is reset, not reallocated, between scrapes. */
+    static final class Buffer {
+        private byte[] bytes;
+        private int size;
+
+        Buffer(int initialCapacity) {
+            this.bytes = new byte[initialCapacity];
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void truncate(int mark) {
+            size = mark;
+        }
+
+        /** Makes room for {@code extra} more bytes; callers may then fill up to {@code array().length}. */
+        void ensureCapacity(int extra) {
+            if (size + extra <= bytes.length) return;
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+
+        void advance(int n) {
+            size += n;
+        }
+
+        void write(byte b) {
+            ensureCapacity(1);
+            bytes[size++] = b;
+        }
+
+        void write(byte[] b) {
+            ensureCapacity(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        void writeLong(long v) {
+            if (v == Long.MIN_VALUE) {
+                write(utf8(Long.toString(v)));
+                return;
+            }
+            ensureCapacity(20);
+            if (v < 0) {
+                bytes[size++] = '-';
+                v = -v;
+            }
+            int start = size;
+            do {
+                bytes[size++] = (byte) ('0' + (v % 10));
+                v /= 10;
+            } while (v > 0);
+            for (int i = start, j = size - 1; i < j; i++, j--) {
+                byte t = bytes[i];
+                bytes[i] = bytes[j];
+                bytes[j] = t;
+            }
+        }
+
+        /** Writes {@code micros / 1e6} with six decimals, e.g. 1500 as {@code 0.001500}. */
+        void writeMicros(long micros) {
+            if (micros < 0) {
+                write((byte) '-');
+                micros = micros == Long.MIN_VALUE ? Long.MAX_VALUE : -micros;
+            }
+            writeLong(micros / 1_000_000);
+            ensureCapacity(7);
+            bytes[size++] = '.';
+            long frac = micros % 1_000_000;
+            for (long div = 100_000; div > 0; div /= 10) {
+                bytes[size++] = (byte) ('0' + (frac / div) % 10);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, 0, size, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] seriesPrefix(String name, String label, String labelValue) {
+        if (label == null) return utf8(name + ' ');
+        return utf8(name + '{' + label + "=\"" + escapeLabel(labelValue) + "\"} ");
+    }
+
+    private static String escapeLabel(String value) {
+        return value
+                .replace("\\", "\\\\")
+                .replace("\n", "\\n")
+                .replace("\"", "\\\"");
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.chess.server.util;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ThreadPoolExecutor} that counts rejections and records how long each task waited in the
+ * queue before a thread picked it up, so saturation shows in metrics before tasks start being refused.
+ */
+public final class MonitoredThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final LatencyHistogram waitMicros = new LatencyHistogram();
+
+    public MonitoredThreadPoolExecutor(int core, int max, long keepAlive, TimeUnit unit,
+                                       BlockingQueue<Runnable> queue, ThreadFactory threads,
+                                       RejectedExecutionHandler onRejected) {
+        super(core, max, keepAlive, unit, queue, threads);
+        setRejectedExecutionHandler((r, pool) -> {
+            rejected.incrementAndGet();
+            onRejected.rejectedExecution(r, pool);
+        });
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) throw new NullPointerException();
+        super.execute(new Timed(command, System.nanoTime()));
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        if (r instanceof Timed timed) {
+            waitMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - timed.queuedAt));
+        }
+        super.beforeExecute(t, r);
+    }
+
+    public long rejectedCount() {
+        return rejected.get();
+    }
+
+    public LatencyHistogram taskWait() {
+        return waitMicros;
+    }
+
+    /** Registers the pool's gauges and wait histogram under {@code pool=<name>}. */
+    public void registerMetrics(ServerMetrics metrics, String name) {
+        metrics.registerGauge("chess_executor_active_threads", "Threads running a task.", "pool", name,
+                this::getActiveCount);
+        metrics.registerGauge("chess_executor_pool_size", "Threads currently in the pool.", "pool", name,
+                this::getPoolSize);
+        metrics.registerGauge("chess_executor_max_threads", "Configured maximum pool size.", "pool", name,
+                this::getMaximumPoolSize);
+        metrics.registerGauge("chess_executor_queue_depth", "Tasks waiting for a thread.", "pool", name,
+                () -> getQueue().size());
+        metrics.registerGauge("chess_executor_queue_remaining", "Free queue slots before tasks are rejected.",
+                "pool", name, () -> getQueue().remainingCapacity());
+        metrics.registerCounter("chess_executor_rejected_total", "Tasks rejected since start.", "pool", name,
+                rejected::get);
+        metrics.registerHistogram("chess_executor_task_wait_seconds", "Time tasks spent queued before a thread took them.",
+                "pool", name, waitMicros);
+    }
+
+    /** Carries the enqueue time to {@link #beforeExecute}; unwrapped by running it. */
+    private record Timed(Runnable task, long queuedAt) implements Runnable {
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+}
@@ -6,31 +6,70 @@ import com.sun.net.httpserver.HttpServer;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
 public final class PrometheusMetricsServer implements AutoCloseable {
     private static final String PROP_ENABLED = "chess.metrics.prometheus.enabled";
     private static final String PROP_HOST = "chess.metrics.prometheus.host";
     private static final String PROP_PORT = "chess.metrics.prometheus.port";
     private static final String PROP_PATH = "chess.metrics.prometheus.path";
+    private static final String PROP_CACHE_MS = "chess.metrics.prometheus.cacheMs";
+    private static final String PROP_PROFILE_ENABLED = "chess.metrics.profile.enabled";
+    private static final String PROP_PROFILE_PATH = "chess.metrics.profile.path";
+    private static final String PROP_PROFILE_MAX_SECONDS = "chess.metrics.profile.maxSeconds";
+    private static final String PROP_PROFILE_MAX_HZ = "chess.metrics.profile.maxHz";
+    private static final String DEFAULT_PROFILE_THREADS =
+            "client-handler,game-shard,server-timer,timer-offload,game-writer,client-push,matchmaker";
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
 
-    private final ServerMetrics metrics;
+    private final MetricsExposition exposition;
     private final boolean enabled;
     private final String host;
     private final int port;
     private final String path;
+    private final long cacheMs;
+    private final boolean profileEnabled;
+    private final String profilePath;
+    private final int profileMaxSeconds;
+    private final int profileMaxHz;
+    private final AtomicBoolean profiling = new AtomicBoolean();
     private HttpServer server;
+    private ExecutorService profiler;
+
+    // Scrape state, reused across requests and guarded by this.
+    private final MetricsExposition.Buffer compressed = new MetricsExposition.Buffer(4 * 1024);
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+    private final CRC32 crc = new CRC32();
+    private MetricsExposition.Buffer lastBody;
+    private MetricsExposition.Format lastFormat;
+    private boolean lastGzip;
+    private long lastRenderNanos;
 
     public PrometheusMetricsServer(ServerMetrics metrics) {
         if (metrics == null) throw new IllegalArgumentException("metrics is null");
-        this.metrics = metrics;
+        this.exposition = new MetricsExposition(metrics);
         this.enabled = Boolean.parseBoolean(System.getProperty(PROP_ENABLED, "false"));
         this.host = System.getProperty(PROP_HOST, "0.0.0.0").trim();
         this.port = parseInt(PROP_PORT, 9102);
         this.path = normalizePath(System.getProperty(PROP_PATH, "/metrics"));
+        this.cacheMs = Math.max(0, parseInt(PROP_CACHE_MS, 1000));
+        this.profileEnabled = Boolean.parseBoolean(System.getProperty(PROP_PROFILE_ENABLED, "false"));
+        this.profilePath = normalizePath(System.getProperty(PROP_PROFILE_PATH, "/profile"));
+        this.profileMaxSeconds = Math.max(1, parseInt(PROP_PROFILE_MAX_SECONDS, 60));
+        this.profileMaxHz = Math.max(1, parseInt(PROP_PROFILE_MAX_HZ, 100));
     }
 
     public void start() {
@@ -38,6 +77,15 @@ public final class PrometheusMetricsServer implements AutoCloseable {
         try {
             server = HttpServer.create(new InetSocketAddress(host, port), 0);
             server.createContext(path, this::handleMetrics);
+            if (profileEnabled) {
+                // Own thread: a profile runs for seconds and must not hold up scrapes.
+                profiler = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "stack-sampler");
+                    t.setDaemon(true);
+                    return t;
+                });
+                server.createContext(profilePath, this::handleProfile);
+            }
             server.setExecutor(Executors.newSingleThreadExecutor(r -> {
                 Thread t = new Thread(r, "prometheus-metrics");
                 t.setDaemon(true);
@@ -45,6 +93,7 @@ public final class PrometheusMetricsServer implements AutoCloseable {
             }));
             server.start();
             Log.info("Prometheus metrics exporter started on " + host + ":" + port + path);
+            if (profileEnabled) Log.info("Stack sampling profiler available on " + host + ":" + port + profilePath);
         } catch (IOException e) {
             Log.warn("Failed to start Prometheus metrics server.", e);
             server = null;
@@ -57,6 +106,13 @@ public final class PrometheusMetricsServer implements AutoCloseable {
             server.stop(0);
             server = null;
         }
+        if (profiler != null) {
+            profiler.shutdownNow();
+            profiler = null;
+        }
+        synchronized (this) {
+            deflater.end();
+        }
     }
 
     private void handleMetrics(HttpExchange exchange) throws IOException {
@@ -66,100 +122,154 @@ public final class PrometheusMetricsServer implements AutoCloseable {
             return;
         }
 
-        String body = formatMetrics();
-        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
-        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
-        exchange.sendResponseHeaders(200, bytes.length);
-        try (OutputStream out = exchange.getResponseBody()) {
-            out.write(bytes);
-        }
-    }
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        MetricsExposition.Format format = accept != null && accept.contains("application/openmetrics-text")
+                ? MetricsExposition.Format.OPENMETRICS : MetricsExposition.Format.PROMETHEUS;
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
 
-    private String formatMetrics() {
-        Map<String, Object> snap = metrics.snapshot();
-        StringBuilder sb = new StringBuilder(1024);
-
-        appendGauge(sb, "chess_connections_current", "Current open connections.", snap.get("connectionsCurrent"));
-        appendCounter(sb, "chess_connections_total", "Total connections since start.", snap.get("connectionsTotal"));
-        appendCounter(sb, "chess_requests_total", "Total requests since start.", snap.get("requestsTotal"));
-        appendCounter(sb, "chess_requests_errors_total", "Total request errors since start.", snap.get("requestsErrors"));
-        appendCounter(sb, "chess_requests_rate_limited_total", "Total rate limited requests.", snap.get("requestsRateLimited"));
-        appendCounter(sb, "chess_requests_invalid_total", "Total invalid requests.", snap.get("requestsInvalid"));
-        appendGauge(sb, "chess_online_users", "Current online users.", snap.get("onlineUsers"));
-        appendGauge(sb, "chess_matchmaking_queue", "Current matchmaking queue size.", snap.get("matchmakingQueue"));
-        appendGauge(sb, "chess_active_games", "Current active games.", snap.get("activeGames"));
-        appendGauge(sb, "chess_heap_used_bytes", "Current heap used in bytes.", snap.get("heapUsedBytes"));
-        appendGauge(sb, "chess_heap_committed_bytes", "Current heap committed in bytes.", snap.get("heapCommittedBytes"));
-        appendGauge(sb, "chess_heap_max_bytes", "Max heap size in bytes.", snap.get("heapMaxBytes"));
-        appendGauge(sb, "chess_available_processors", "Available processors.", snap.get("availableProcessors"));
-        appendGauge(sb, "chess_uptime_ms", "Uptime in milliseconds.", snap.get("uptimeMs"));
-        appendGauge(sb, "chess_last_request_timestamp_ms", "Last request timestamp (ms).", snap.get("lastRequestAtMs"));
-
-        double heapUsed = asDouble(snap.get("heapUsedBytes"));
-        double heapMax = asDouble(snap.get("heapMaxBytes"));
-        if (heapMax > 0) {
-            appendGauge(sb, "chess_heap_used_pct", "Heap used percentage.", (heapUsed * 100.0) / heapMax);
-        }
-
-        Object byTypeRaw = snap.get("requestsByType");
-        if (byTypeRaw instanceof Map<?, ?> byType) {
-            appendHelp(sb, "chess_requests_by_type_total", "Requests by type.");
-            appendType(sb, "chess_requests_by_type_total", "counter");
-            for (Map.Entry<?, ?> entry : byType.entrySet()) {
-                String key = entry.getKey() == null ? "unknown" : String.valueOf(entry.getKey());
-                double value = asDouble(entry.getValue());
-                sb.append("chess_requests_by_type_total{type=\"")
-                        .append(escapeLabel(key))
-                        .append("\"} ")
-                        .append(formatNumber(value))
-                        .append('\n');
+        // Buffers are reused across scrapes, so rendering and writing happen under one lock.
+        synchronized (this) {
+            MetricsExposition.Buffer body = render(format, gzip);
+            exchange.getResponseHeaders().set("Content-Type", format.contentType);
+            if (gzip) exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.getResponseHeaders().set("Vary", "Accept, Accept-Encoding");
+            exchange.sendResponseHeaders(200, body.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body.array(), 0, body.size());
             }
         }
-
-        return sb.toString();
     }
 
-    private static void appendGauge(StringBuilder sb, String name, String help, Object value) {
-        if (!isNumber(value)) return;
-        appendHelp(sb, name, help);
-        appendType(sb, name, "gauge");
-        sb.append(name).append(' ').append(formatNumber(asDouble(value))).append('\n');
+    /** Renders a fresh body unless the same variant was rendered within {@code cacheMs}. Caller holds the lock. */
+    MetricsExposition.Buffer render(MetricsExposition.Format format, boolean gzip) {
+        long now = System.nanoTime();
+        if (lastBody != null && format == lastFormat && gzip == lastGzip
+                && now - lastRenderNanos < TimeUnit.MILLISECONDS.toNanos(cacheMs)) {
+            return lastBody;
+        }
+        MetricsExposition.Buffer text = exposition.render(format);
+        lastBody = gzip ? gzip(text) : text;
+        lastFormat = format;
+        lastGzip = gzip;
+        lastRenderNanos = now;
+        return lastBody;
     }
 
-    private static void appendCounter(StringBuilder sb, String name, String help, Object value) {
-        if (!isNumber(value)) return;
-        appendHelp(sb, name, help);
-        appendType(sb, name, "counter");
-        sb.append(name).append(' ').append(formatNumber(asDouble(value))).append('\n');
+    /** Gzip member of {@code text} built with a reused deflater, CRC and output buffer. */
+    MetricsExposition.Buffer gzip(MetricsExposition.Buffer text) {
+        compressed.reset();
+        compressed.write(GZIP_HEADER);
+        deflater.reset();
+        deflater.setInput(text.array(), 0, text.size());
+        deflater.finish();
+        while (!deflater.finished()) {
+            compressed.ensureCapacity(4096);
+            byte[] b = compressed.array();
+            compressed.advance(deflater.deflate(b, compressed.size(), b.length - compressed.size()));
+        }
+        crc.reset();
+        crc.update(text.array(), 0, text.size());
+        writeIntLe(compressed, (int) crc.getValue());
+        writeIntLe(compressed, text.size());
+        return compressed;
     }
 
-    private static void appendHelp(StringBuilder sb, String name, String help) {
-        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
-    }
+    /**
+     * {@code GET <profilePath>?seconds=10&hz=49&threads=a,b&idle=false}: samples the named thread pools
+     * and answers with folded stacks, heaviest first. One profile at a time; others get 429.
+     */
+    private void handleProfile(HttpExchange exchange) throws IOException {
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
 
-    private static void appendType(StringBuilder sb, String name, String type) {
-        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int seconds;
+        int hz;
+        try {
+            seconds = Integer.parseInt(query.getOrDefault("seconds", "10"));
+            hz = Integer.parseInt(query.getOrDefault("hz", "49"));
+        } catch (NumberFormatException e) {
+            sendText(exchange, 400, "seconds and hz must be integers.\n");
+            return;
+        }
+        if (seconds < 1 || seconds > profileMaxSeconds || hz < 1 || hz > profileMaxHz) {
+            sendText(exchange, 400, "seconds must be 1.." + profileMaxSeconds + " and hz 1.." + profileMaxHz + ".\n");
+            return;
+        }
+        List<String> threads = new ArrayList<>();
+        for (String t : query.getOrDefault("threads", DEFAULT_PROFILE_THREADS).split(",")) {
+            if (!t.isBlank()) threads.add(t.trim());
+        }
+        if (threads.isEmpty()) {
+            sendText(exchange, 400, "threads must name at least one thread name prefix.\n");
+            return;
+        }
+        boolean idle = Boolean.parseBoolean(query.getOrDefault("idle", "false"));
+
+        if (!profiling.compareAndSet(false, true)) {
+            sendText(exchange, 429, "A profile is already running.\n");
+            return;
+        }
+        try {
+            profiler.execute(() -> runProfile(exchange, threads, seconds, hz, idle));
+        } catch (RejectedExecutionException e) {
+            profiling.set(false);
+            sendText(exchange, 503, "Profiler is shutting down.\n");
+        }
     }
 
-    private static boolean isNumber(Object value) {
-        return value instanceof Number;
+    private void runProfile(HttpExchange exchange, List<String> threads, int seconds, int hz, boolean idle) {
+        try {
+            Map<String, Long> folded = new StackSampler().sample(threads, seconds * 1000L, hz, idle);
+            List<Map.Entry<String, Long>> lines = new ArrayList<>(folded.entrySet());
+            lines.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+            StringBuilder sb = new StringBuilder(Math.max(256, lines.size() * 128));
+            for (Map.Entry<String, Long> e : lines) sb.append(e.getKey()).append(' ').append(e.getValue()).append('\n');
+            sendText(exchange, 200, sb.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendText(exchange, 503, "Profile interrupted.\n");
+        } catch (RuntimeException e) {
+            Log.warn("Stack sampling profile failed.", e);
+            sendText(exchange, 500, "Profile failed.\n");
+        } finally {
+            profiling.set(false);
+        }
     }
 
-    private static double asDouble(Object value) {
-        if (value instanceof Number n) return n.doubleValue();
-        return 0.0;
+    private static void sendText(HttpExchange exchange, int status, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            Log.warn("Failed to send profiler response.", e);
+        } finally {
+            exchange.close();
+        }
     }
 
-    private static String formatNumber(double value) {
-        if (Double.isNaN(value) || Double.isInfinite(value)) return "0";
-        return String.format(Locale.ROOT, "%.6f", value);
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> out = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return out;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            out.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return out;
     }
 
-    private static String escapeLabel(String value) {
-        return value
-                .replace("\\", "\\\\")
-                .replace("\n", "\\n")
-                .replace("\"", "\\\"");
+    private static void writeIntLe(MetricsExposition.Buffer out, int v) {
+        for (int i = 0; i < 4; i++) out.write((byte) (v >>> (8 * i)));
     }
 
     private static String normalizePath(String raw) {
@@ -0,0 +1,47 @@
+package com.example.chess.server.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Request types the server understands, used to index per-type metrics without building keys. */
+public enum RequestType {
+    PING("ping"),
+    HEALTH("health"),
+    REGISTER("register"),
+    LOGIN("login"),
+    LOGOUT("logout"),
+    REQUEST_GAME("requestGame"),
+    MAKE_MOVE("makeMove"),
+    OFFER_DRAW("offerDraw"),
+    ACCEPT_DRAW("acceptDraw"),
+    DECLINE_DRAW("declineDraw"),
+    RESIGN("resign"),
+    LIST_GAMES("listGames"),
+    GET_GAME_DETAILS("getGameDetails"),
+    GET_STATS("getStats"),
+    /** Anything else a client sends; kept as one bucket so clients cannot grow the metric key space. */
+    OTHER("other");
+
+    private static final Map<String, RequestType> BY_WIRE_NAME = new HashMap<>();
+
+    static {
+        for (RequestType t : values()) {
+            if (t != OTHER) BY_WIRE_NAME.put(t.wireName, t);
+        }
+    }
+
+    private final String wireName;
+
+    RequestType(String wireName) {
+        this.wireName = wireName;
+    }
+
+    public String wireName() {
+        return wireName;
+    }
+
+    public static RequestType of(String wireName) {
+        if (wireName == null) return OTHER;
+        return BY_WIRE_NAME.getOrDefault(wireName, OTHER);
+    }
+}
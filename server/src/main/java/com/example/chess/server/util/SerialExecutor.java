@@ -0,0 +1,76 @@
+package com.example.chess.server.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs submitted tasks one at a time, in submission order, on a shared delegate executor.
+ * At most one drain is scheduled on the delegate at a time; after a batch it yields so other
+ * queues sharing the pool get a turn.
+ */
+public final class SerialExecutor implements Executor {
+    private static final int BATCH = 32;
+
+    private final Executor delegate;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public SerialExecutor(Executor delegate) {
+        if (delegate == null) throw new IllegalArgumentException("Missing delegate executor.");
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) throw new IllegalArgumentException("Missing task.");
+        tasks.add(task);
+        queued.incrementAndGet();
+        try {
+            schedule();
+        } catch (RejectedExecutionException e) {
+            // The caller is told the task failed, so it must not run later; a drain that already took it keeps it.
+            if (tasks.remove(task)) {
+                queued.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    /** Tasks waiting to run (not counting the one running now). */
+    public int queued() {
+        return queued.get();
+    }
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) return;
+        try {
+            delegate.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+            throw e;
+        }
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < BATCH; i++) {
+                Runnable task = tasks.poll();
+                if (task == null) break;
+                queued.decrementAndGet();
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    Log.warn("Serial task failed", e);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+        }
+        if (!tasks.isEmpty()) schedule();
+    }
+}
@@ -1,12 +1,16 @@
 package com.example.chess.server.util;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 
 public final class ServerMetrics {
 
@@ -15,25 +19,71 @@ public final class ServerMetrics {
     private final IntSupplier matchmakingQueue;
     private final IntSupplier activeGames;
 
+    // Hot counters are striped LongAdders and per-type tables are indexed by RequestType.ordinal(),
+    // so recording a request neither allocates nor contends on a shared cache line.
     private final AtomicLong currentConnections = new AtomicLong();
-    private final AtomicLong totalConnections = new AtomicLong();
-    private final AtomicLong totalRequests = new AtomicLong();
-    private final AtomicLong totalErrors = new AtomicLong();
-    private final AtomicLong totalRateLimited = new AtomicLong();
-    private final AtomicLong totalInvalidRequests = new AtomicLong();
-    private final AtomicLong lastRequestAtMs = new AtomicLong();
+    private final LongAdder totalConnections = new LongAdder();
+    private final LongAdder totalRequests = new LongAdder();
+    private final LongAdder totalErrors = new LongAdder();
+    private final LongAdder totalRateLimited = new LongAdder();
+    private final LongAdder totalInvalidRequests = new LongAdder();
+    private final LongAccumulator lastRequestAtMs = new LongAccumulator(Math::max, 0L);
 
-    private final ConcurrentMap<String, AtomicLong> requestsByType = new ConcurrentHashMap<>();
+    private static final RequestType[] TYPES = RequestType.values();
+    private final LongAdder[] requestsByType = newAdders();
+    private final LongAdder[] errorsByType = newAdders();
+    private final LatencyHistogram[] latencyByType = new LatencyHistogram[TYPES.length];
+    private final LatencyHistogram decodeMicros = new LatencyHistogram();
+    private final List<LabeledGauge> gauges = new CopyOnWriteArrayList<>();
+    private final List<LabeledCounter> counters = new CopyOnWriteArrayList<>();
+    private final List<LabeledHistogram> histograms = new CopyOnWriteArrayList<>();
+
+    /** A gauge read on demand, e.g. {@code chess_game_shard_games{shard="3"}}. */
+    public record LabeledGauge(String name, String help, String label, String labelValue, LongSupplier value) {
+        public long read() {
+            try {
+                return value.getAsLong();
+            } catch (Exception e) {
+                return -1L;
+            }
+        }
+    }
+
+    /** A monotonic count read on demand, exported with counter type, e.g. {@code chess_timer_fired_total}. */
+    public record LabeledCounter(String name, String help, String label, String labelValue, LongSupplier value) {
+        public long read() {
+            try {
+                return value.getAsLong();
+            } catch (Exception e) {
+                return -1L;
+            }
+        }
+    }
+
+    /** A latency histogram in microseconds owned by another component, exported in seconds. */
+    public record LabeledHistogram(String name, String help, String label, String labelValue, LatencyHistogram histogram) {}
 
     public ServerMetrics(IntSupplier onlineUsers, IntSupplier matchmakingQueue, IntSupplier activeGames) {
         this.startTimeMs = System.currentTimeMillis();
         this.onlineUsers = onlineUsers;
         this.matchmakingQueue = matchmakingQueue;
         this.activeGames = activeGames;
+        for (int i = 0; i < TYPES.length; i++) latencyByType[i] = new LatencyHistogram();
+        registerHistogram("chess_request_decode_seconds", "Time to parse a request line into a message.",
+                null, null, decodeMicros);
+        registerCounter("chess_log_dropped_total", "Log records dropped because the async log buffer was full.",
+                Log::droppedCount);
+        registerGauge("chess_log_queue_depth", "Log records waiting for the log-writer thread.", Log::queueDepth);
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[TYPES.length];
+        for (int i = 0; i < adders.length; i++) adders[i] = new LongAdder();
+        return adders;
     }
 
     public void onConnectionOpen() {
-        totalConnections.incrementAndGet();
+        totalConnections.increment();
         currentConnections.incrementAndGet();
     }
 
@@ -43,27 +93,116 @@ public final class ServerMetrics {
     }
 
     public void onRequest(String type) {
-        totalRequests.incrementAndGet();
-        lastRequestAtMs.set(System.currentTimeMillis());
-        if (type == null) return;
-        requestsByType.computeIfAbsent(type, k -> new AtomicLong()).incrementAndGet();
+        onRequest(RequestType.of(type));
     }
 
-    public void onError(String type) {
-        totalErrors.incrementAndGet();
-        if (type != null) {
-            requestsByType.computeIfAbsent(type + "_error", k -> new AtomicLong()).incrementAndGet();
+    public void onRequest(RequestType type) {
+        totalRequests.increment();
+        lastRequestAtMs.accumulate(System.currentTimeMillis());
+        requestsByType[type.ordinal()].increment();
+    }
+
+    public void onRequestDecoded(long elapsedNanos) {
+        decodeMicros.record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    /** Records how long a request took to handle, in microseconds; {@link RequestType#OTHER} is not recorded. */
+    public void onRequestCompleted(RequestType type, long elapsedNanos) {
+        if (type == RequestType.OTHER) return;
+        latencyByType[type.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    /** Request latency histograms (microseconds) of types seen so far, sorted by wire name. */
+    public Map<String, LatencyHistogram> requestLatencies() {
+        Map<String, LatencyHistogram> out = new TreeMap<>();
+        for (RequestType t : TYPES) {
+            LatencyHistogram h = latencyByType[t.ordinal()];
+            if (h.count() > 0) out.put(t.wireName(), h);
         }
+        return out;
+    }
+
+    public void onError(String type) {
+        onError(RequestType.of(type));
+    }
+
+    public void onError(RequestType type) {
+        totalErrors.increment();
+        errorsByType[type.ordinal()].increment();
     }
 
     public void onRateLimited() {
-        totalRateLimited.incrementAndGet();
+        totalRateLimited.increment();
     }
 
     public void onInvalidRequest() {
-        totalInvalidRequests.incrementAndGet();
+        totalInvalidRequests.increment();
     }
 
+    public void registerGauge(String name, String help, LongSupplier value) {
+        registerGauge(name, help, null, null, value);
+    }
+
+    /** Registers a gauge owned by another component; series sharing a name are exported as one family. */
+    public void registerGauge(String name, String help, String label, String labelValue, LongSupplier value) {
+        if (name == null || value == null || (label == null) != (labelValue == null)) {
+            throw new IllegalArgumentException("Missing gauge name, label or supplier.");
+        }
+        gauges.add(new LabeledGauge(name, help == null ? "" : help, label, labelValue, value));
+    }
+
+    public List<LabeledGauge> gauges() {
+        return List.copyOf(gauges);
+    }
+
+    public void registerCounter(String name, String help, LongSupplier value) {
+        registerCounter(name, help, null, null, value);
+    }
+
+    /** Registers a count that only goes up (until restart); {@code name} must end in {@code _total}. */
+    public void registerCounter(String name, String help, String label, String labelValue, LongSupplier value) {
+        if (name == null || value == null || (label == null) != (labelValue == null)) {
+            throw new IllegalArgumentException("Missing counter name, label or supplier.");
+        }
+        if (!name.endsWith("_total")) throw new IllegalArgumentException("Counter names end in _total: " + name);
+        counters.add(new LabeledCounter(name, help == null ? "" : help, label, labelValue, value));
+    }
+
+    public List<LabeledCounter> counters() {
+        return List.copyOf(counters);
+    }
+
+    public void registerHistogram(String name, String help, String label, String labelValue, LatencyHistogram histogram) {
+        if (name == null || histogram == null || (label == null) != (labelValue == null)) {
+            throw new IllegalArgumentException("Missing histogram name, label or histogram.");
+        }
+        histograms.add(new LabeledHistogram(name, help == null ? "" : help, label, labelValue, histogram));
+    }
+
+    public List<LabeledHistogram> histograms() {
+        return List.copyOf(histograms);
+    }
+
+    // Allocation-free reads for the Prometheus exporter, which renders on every scrape.
+
+    int gaugeCount() { return gauges.size(); }
+    int counterCount() { return counters.size(); }
+    int histogramCount() { return histograms.size(); }
+    long uptimeMs() { return System.currentTimeMillis() - startTimeMs; }
+    long connectionsCurrent() { return currentConnections.get(); }
+    long connectionsTotal() { return totalConnections.sum(); }
+    long requestsTotal() { return totalRequests.sum(); }
+    long errorsTotal() { return totalErrors.sum(); }
+    long rateLimitedTotal() { return totalRateLimited.sum(); }
+    long invalidTotal() { return totalInvalidRequests.sum(); }
+    long lastRequestAtMs() { return lastRequestAtMs.get(); }
+    long onlineUsers() { return safeGet(onlineUsers); }
+    long matchmakingQueue() { return safeGet(matchmakingQueue); }
+    long activeGames() { return safeGet(activeGames); }
+    long requestCount(RequestType type) { return requestsByType[type.ordinal()].sum(); }
+    long errorCount(RequestType type) { return errorsByType[type.ordinal()].sum(); }
+    LatencyHistogram latency(RequestType type) { return latencyByType[type.ordinal()]; }
+
     public Map<String, Object> snapshot() {
         long now = System.currentTimeMillis();
         Runtime rt = Runtime.getRuntime();
@@ -73,11 +212,11 @@ public final class ServerMetrics {
         out.put("timestampMs", now);
         out.put("uptimeMs", now - startTimeMs);
         out.put("connectionsCurrent", currentConnections.get());
-        out.put("connectionsTotal", totalConnections.get());
-        out.put("requestsTotal", totalRequests.get());
-        out.put("requestsErrors", totalErrors.get());
-        out.put("requestsRateLimited", totalRateLimited.get());
-        out.put("requestsInvalid", totalInvalidRequests.get());
+        out.put("connectionsTotal", totalConnections.sum());
+        out.put("requestsTotal", totalRequests.sum());
+        out.put("requestsErrors", totalErrors.sum());
+        out.put("requestsRateLimited", totalRateLimited.sum());
+        out.put("requestsInvalid", totalInvalidRequests.sum());
         out.put("lastRequestAtMs", lastRequestAtMs.get());
         out.put("onlineUsers", safeGet(onlineUsers));
         out.put("matchmakingQueue", safeGet(matchmakingQueue));
@@ -88,11 +227,41 @@ public final class ServerMetrics {
         out.put("availableProcessors", rt.availableProcessors());
 
         Map<String, Object> byType = new TreeMap<>();
-        for (Map.Entry<String, AtomicLong> entry : requestsByType.entrySet()) {
-            byType.put(entry.getKey(), entry.getValue().get());
+        for (RequestType t : TYPES) {
+            long requests = requestsByType[t.ordinal()].sum();
+            long errors = errorsByType[t.ordinal()].sum();
+            if (requests > 0) byType.put(t.wireName(), requests);
+            if (errors > 0) byType.put(t.wireName() + "_error", errors);
         }
         out.put("requestsByType", byType);
 
+        Map<String, Object> latency = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : requestLatencies().entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            Map<String, Object> summary = new TreeMap<>();
+            summary.put("count", h.count());
+            summary.put("p50Us", h.percentile(0.50));
+            summary.put("p90Us", h.percentile(0.90));
+            summary.put("p99Us", h.percentile(0.99));
+            summary.put("maxUs", h.max());
+            latency.put(entry.getKey(), summary);
+        }
+        out.put("requestLatencyUs", latency);
+
+        Map<String, Object> gaugeValues = new TreeMap<>();
+        for (LabeledGauge g : gauges) {
+            String key = g.label() == null ? g.name() : g.name() + "{" + g.label() + "=" + g.labelValue() + "}";
+            gaugeValues.put(key, g.read());
+        }
+        out.put("gauges", gaugeValues);
+
+        Map<String, Object> counterValues = new TreeMap<>();
+        for (LabeledCounter c : counters) {
+            String key = c.label() == null ? c.name() : c.name() + "{" + c.label() + "=" + c.labelValue() + "}";
+            counterValues.put(key, c.read());
+        }
+        out.put("counters", counterValues);
+
         return out;
     }
 
@@ -1,5 +1,6 @@
 package com.example.chess.server.util;
 
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -92,6 +93,8 @@ public final class ServerMetricsReporter implements AutoCloseable {
                     + " games=" + activeGames
                     + " heapUsedPct=" + fmtPct(heapUsedPct)
                     + " errRatePct=" + fmtPct(errorRatePct));
+            String latency = latencySummary();
+            if (!latency.isEmpty()) Log.info("Request latency p50/p99/max (ms): " + latency);
         }
 
         if (alertsEnabled) {
@@ -124,6 +127,24 @@ public final class ServerMetricsReporter implements AutoCloseable {
         lastErrors = requestsErrors;
     }
 
+    private String latencySummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, LatencyHistogram> e : metrics.requestLatencies().entrySet()) {
+            LatencyHistogram h = e.getValue();
+            if (h.count() == 0) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(e.getKey()).append('=')
+                    .append(fmtMs(h.percentile(0.50))).append('/')
+                    .append(fmtMs(h.percentile(0.99))).append('/')
+                    .append(fmtMs(h.max()));
+        }
+        return sb.toString();
+    }
+
+    private static String fmtMs(long micros) {
+        return String.format(Locale.ROOT, "%.1f", micros / 1_000.0);
+    }
+
     @Override
     public void close() {
         exec.shutdownNow();
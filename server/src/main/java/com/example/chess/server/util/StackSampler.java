@@ -0,0 +1,106 @@
+package com.example.chess.server.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall-clock stack sampler for selected server threads. Each sample reads the stacks of threads whose
+ * name starts with one of the given prefixes and counts them as folded stacks
+ * ({@code thread;root;...;leaf}), the input format of flamegraph.pl and speedscope. Thread numbers are
+ * stripped ({@code game-shard-3} becomes {@code game-shard}) so shards of one pool fold together.
+ */
+final class StackSampler {
+    static final int MAX_DEPTH = 96;
+    private static final long THREAD_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /** Native calls that block on I/O while the thread still reports RUNNABLE. */
+    private static final Set<String> IDLE_NATIVE_FRAMES = Set.of(
+            "sun.nio.ch.SocketDispatcher.read0", "sun.nio.ch.SocketDispatcher.readv0",
+            "sun.nio.ch.FileDispatcherImpl.read0", "sun.nio.ch.Net.poll", "sun.nio.ch.Net.accept",
+            "sun.nio.ch.EPoll.wait", "sun.nio.ch.KQueue.poll", "sun.nio.ch.WEPoll.wait",
+            "java.net.SocketInputStream.socketRead0", "java.net.PlainSocketImpl.socketAccept",
+            "java.io.FileInputStream.readBytes");
+
+    private final ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Samples for {@code durationMs} at {@code hz}; threads blocked, waiting or parked in a blocking
+     * native I/O call are skipped unless {@code includeIdle}. Returns folded stack to sample count.
+     */
+    Map<String, Long> sample(List<String> threadPrefixes, long durationMs, int hz, boolean includeIdle)
+            throws InterruptedException {
+        Map<String, Long> folded = new HashMap<>();
+        StringBuilder sb = new StringBuilder(1024);
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / hz;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(durationMs);
+
+        long[] ids = new long[0];
+        long idsAt = start - THREAD_REFRESH_NANOS;
+        for (long next = start; next < end; next += periodNanos) {
+            long now = System.nanoTime();
+            if (next > now) {
+                TimeUnit.NANOSECONDS.sleep(next - now);
+                now = System.nanoTime();
+            }
+            if (now - idsAt >= THREAD_REFRESH_NANOS) {
+                ids = matchingThreads(threadPrefixes);
+                idsAt = now;
+            }
+            if (ids.length == 0) continue;
+
+            for (ThreadInfo ti : mx.getThreadInfo(ids, MAX_DEPTH)) {
+                if (ti == null) continue; // exited since the last refresh
+                if (!includeIdle && ti.getThreadState() != Thread.State.RUNNABLE) continue;
+                StackTraceElement[] stack = ti.getStackTrace();
+                if (stack.length == 0 || (!includeIdle && isIdleNative(stack[0]))) continue;
+
+                sb.setLength(0);
+                sb.append(poolName(ti.getThreadName()).replace(' ', '_'));
+                if (stack.length == MAX_DEPTH) sb.append(";[truncated]");
+                for (int i = stack.length - 1; i >= 0; i--) {
+                    String cls = stack[i].getClassName();
+                    int hidden = cls.indexOf('/'); // lambda classes: Foo$$Lambda$63/0x0000...; keep one name per site
+                    sb.append(';').append(cls, 0, hidden < 0 ? cls.length() : hidden)
+                            .append('.').append(stack[i].getMethodName());
+                }
+                folded.merge(sb.toString(), 1L, Long::sum);
+            }
+        }
+        return folded;
+    }
+
+    private long[] matchingThreads(List<String> prefixes) {
+        long[] all = mx.getAllThreadIds();
+        List<Long> out = new ArrayList<>();
+        for (ThreadInfo ti : mx.getThreadInfo(all, 0)) {
+            if (ti == null) continue;
+            for (String p : prefixes) {
+                if (ti.getThreadName().startsWith(p)) {
+                    out.add(ti.getThreadId());
+                    break;
+                }
+            }
+        }
+        long[] ids = new long[out.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = out.get(i);
+        return ids;
+    }
+
+    static boolean isIdleNative(StackTraceElement leaf) {
+        return leaf.isNativeMethod() && IDLE_NATIVE_FRAMES.contains(leaf.getClassName() + "." + leaf.getMethodName());
+    }
+
+    static String poolName(String threadName) {
+        int i = threadName.length();
+        while (i > 0 && Character.isDigit(threadName.charAt(i - 1))) i--;
+        if (i < threadName.length() && i > 0 && threadName.charAt(i - 1) == '-') return threadName.substring(0, i - 1);
+        return threadName;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.chess.server.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The server's single timer: clock flags, reconnect grace periods, heartbeats and periodic probes
+ * all share one {@link HashedWheelTimer} thread ("server-timer"). Short tasks run on that thread;
+ * tasks that may block (disk, network) are handed to a small "timer-offload" pool so they cannot
+ * delay other deadlines.
+ */
+public final class TimerService implements AutoCloseable {
+
+    public static final long DEFAULT_TICK_MS = 20L;
+    public static final int DEFAULT_WHEEL_SIZE = 1024;
+
+    private final HashedWheelTimer wheel;
+    private final ThreadPoolExecutor offload;
+
+    public TimerService() {
+        this(DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE, 2, 1024);
+    }
+
+    public TimerService(long tickMs, int wheelSize, int offloadThreads, int offloadQueue) {
+        this.wheel = new HashedWheelTimer("server-timer", tickMs, wheelSize);
+        AtomicInteger seq = new AtomicInteger();
+        this.offload = new ThreadPoolExecutor(offloadThreads, offloadThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, offloadQueue)), r -> {
+                    Thread t = new Thread(r, "timer-offload-" + seq.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /** Runs a short, non-blocking {@code task} on the timer thread after {@code delayMs}. */
+    public HashedWheelTimer.Timeout schedule(Runnable task, long delayMs) {
+        return wheel.schedule(task, delayMs);
+    }
+
+    /** Runs {@code task} on the offload pool after {@code delayMs}; dropped with a warning if the pool is saturated. */
+    public HashedWheelTimer.Timeout scheduleBlocking(Runnable task, long delayMs) {
+        if (task == null) throw new IllegalArgumentException("Missing task.");
+        return wheel.schedule(() -> offload(task), delayMs);
+    }
+
+    /**
+     * Runs {@code task} every {@code periodMs} after {@code initialDelayMs}. The next run is scheduled
+     * when the current one finishes, so a slow run delays rather than overlaps the next.
+     */
+    public Repeating scheduleWithFixedDelay(Runnable task, long initialDelayMs, long periodMs, boolean blocking) {
+        if (task == null) throw new IllegalArgumentException("Missing task.");
+        if (periodMs <= 0) throw new IllegalArgumentException("periodMs must be positive.");
+        Repeating r = new Repeating(task, periodMs, blocking);
+        r.arm(initialDelayMs);
+        return r;
+    }
+
+    private boolean offload(Runnable task) {
+        try {
+            offload.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            Log.warn("Timer offload pool saturated, dropping task.", e);
+            return false;
+        }
+    }
+
+    public final class Repeating {
+        private final Runnable task;
+        private final long periodMs;
+        private final boolean blocking;
+        private volatile boolean cancelled;
+        private volatile HashedWheelTimer.Timeout current;
+
+        private Repeating(Runnable task, long periodMs, boolean blocking) {
+            this.task = task;
+            this.periodMs = periodMs;
+            this.blocking = blocking;
+        }
+
+        private void arm(long delayMs) {
+            if (cancelled) return;
+            current = wheel.schedule(blocking ? this::offloadOnce : this::runOnce, delayMs);
+        }
+
+        private void offloadOnce() {
+            if (!offload(this::runOnce)) arm(periodMs); // skip this run, keep the schedule
+        }
+
+        private void runOnce() {
+            if (cancelled) return;
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.warn("Periodic timer task failed", e);
+            } finally {
+                arm(periodMs);
+            }
+        }
+
+        public void cancel() {
+            cancelled = true;
+            HashedWheelTimer.Timeout t = current;
+            if (t != null) t.cancel();
+        }
+    }
+
+    public int pendingCount() {
+        return wheel.pendingCount();
+    }
+
+    public void registerMetrics(ServerMetrics metrics) {
+        metrics.registerGauge("chess_timer_pending", "Timers scheduled and not yet fired or cancelled.",
+                wheel::pendingCount);
+        metrics.registerCounter("chess_timer_fired_total", "Timers fired since start.", wheel::firedCount);
+        metrics.registerGauge("chess_timer_fire_lag_ms", "How late the last timer fired past its deadline (ms).",
+                wheel::lastLagMs);
+        metrics.registerGauge("chess_timer_fire_lag_max_ms", "Largest timer firing delay since start (ms).",
+                wheel::maxLagMs);
+        metrics.registerHistogram("chess_timer_tick_lag_seconds", "How late each server-timer tick started.",
+                null, null, wheel.tickLag());
+        metrics.registerGauge("chess_timer_offload_queue", "Blocking timer tasks waiting for an offload thread.",
+                () -> offload.getQueue().size());
+    }
+
+    @Override
+    public void close() {
+        wheel.close();
+        offload.shutdown();
+        try {
+            offload.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
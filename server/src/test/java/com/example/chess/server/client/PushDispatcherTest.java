@@ -0,0 +1,47 @@
+package com.example.chess.server.client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PushDispatcherTest {
+
+    @Test
+    public void responseWaitsBehindQueuedPushes() throws Exception {
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (PushDispatcher dispatcher = new PushDispatcher(1, 16)) {
+            PushDispatcher.Recipient recipient = dispatcher.newRecipient(line -> {
+                if (line.equals("p1")) {
+                    firstStarted.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                written.add(line + "@" + Thread.currentThread().getName().startsWith("client-push"));
+            }, () -> { });
+
+            recipient.push("p1");
+            assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+            recipient.push("p2");
+            recipient.respond("r1");
+            release.countDown();
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (written.size() < 3 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+            assertEquals(List.of("p1@true", "p2@true", "r1@true"), written);
+
+            recipient.respond("r2");
+            assertEquals("r2@false", written.get(3));
+        }
+    }
+}
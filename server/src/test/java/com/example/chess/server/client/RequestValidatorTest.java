@@ -0,0 +1,52 @@
+package com.example.chess.server.client;
+
+import com.example.chess.common.message.RequestMessage;
+import com.example.chess.server.core.TimeControl;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RequestValidatorTest {
+
+    @Test
+    public void timeControlDefaultsToBlitzAndAcceptsNamedPools() {
+        assertSame(TimeControl.BLITZ, RequestValidator.timeControl(RequestMessage.of("requestGame")));
+        assertSame(TimeControl.BULLET,
+                RequestValidator.timeControl(RequestMessage.of("requestGame").with("timeControl", "Bullet")));
+        assertSame(TimeControl.RAPID,
+                RequestValidator.timeControl(RequestMessage.of("requestGame").with("timeControl", "rapid")));
+    }
+
+    @Test
+    public void timeControlReadsCustomBaseAndIncrement() {
+        // Gson decodes JSON numbers as doubles.
+        TimeControl c = RequestValidator.timeControl(RequestMessage.of("requestGame")
+                .with("timeControl", " CUSTOM ").with("baseSeconds", 600.0).with("incrementSeconds", 5.0));
+        assertEquals("custom:600+5", c.poolKey());
+        assertEquals(600_000L, c.baseMs());
+        assertEquals(5_000L, c.incrementMs());
+    }
+
+    @Test
+    public void timeControlRejectsMalformedAndOutOfRangeValues() {
+        assertRejected(RequestMessage.of("requestGame").with("timeControl", 5));
+        assertRejected(RequestMessage.of("requestGame").with("timeControl", "classical"));
+        assertRejected(RequestMessage.of("requestGame").with("timeControl", "custom").with("incrementSeconds", 0.0));
+        assertRejected(custom("600", 0.0));
+        assertRejected(custom(600.5, 0.0));
+        assertRejected(custom(Double.POSITIVE_INFINITY, 0.0));
+        assertRejected(custom(10.0, 0.0));
+        assertRejected(custom((double) TimeControl.MAX_CUSTOM_BASE_SECONDS + 1, 0.0));
+        assertRejected(custom(600.0, -1.0));
+        assertRejected(custom(600.0, (double) TimeControl.MAX_CUSTOM_INCREMENT_SECONDS + 1));
+    }
+
+    private static RequestMessage custom(Object base, Object increment) {
+        return RequestMessage.of("requestGame")
+                .with("timeControl", "custom").with("baseSeconds", base).with("incrementSeconds", increment);
+    }
+
+    private static void assertRejected(RequestMessage req) {
+        assertThrows(IllegalArgumentException.class, () -> RequestValidator.timeControl(req));
+    }
+}
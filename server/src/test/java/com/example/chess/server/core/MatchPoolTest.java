@@ -0,0 +1,80 @@
+package com.example.chess.server.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MatchPoolTest {
+
+    private static final long SEC = TimeUnit.SECONDS.toNanos(1);
+
+    private final List<String> pairs = new ArrayList<>();
+
+    private void record(MatchPool.Waiter a, MatchPool.Waiter b) {
+        String x = a.username(), y = b.username();
+        pairs.add(x.compareTo(y) < 0 ? x + "-" + y : y + "-" + x);
+    }
+
+    @Test
+    public void pairsClosestRatingsWithinWindow() {
+        MatchPool pool = new MatchPool(100, 25, 800);
+        pool.add(new MatchPool.Waiter("a", null, 1200, 0));
+        pool.add(new MatchPool.Waiter("b", null, 1850, 0));
+        pool.add(new MatchPool.Waiter("c", null, 1260, 0));
+        pool.add(new MatchPool.Waiter("d", null, 1900, 0));
+        pool.add(new MatchPool.Waiter("e", null, 2500, 0));
+
+        assertEquals(2, pool.matchBatch(0, this::record));
+        assertEquals(List.of("a-c", "b-d"), pairs.stream().sorted().toList());
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void windowWidensWithWaitTime() {
+        MatchPool pool = new MatchPool(100, 25, 800);
+        pool.add(new MatchPool.Waiter("low", null, 1000, 0));
+        pool.add(new MatchPool.Waiter("high", null, 1400, 0));
+
+        assertEquals(0, pool.matchBatch(5 * SEC, this::record));  // window 225
+        assertEquals(2, pool.size());
+        assertEquals(1, pool.matchBatch(12 * SEC, this::record)); // window 400
+        assertEquals(List.of("high-low"), pairs);
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void uncappedWindowEventuallyMatchesDistantRatings() {
+        MatchPool capped = new MatchPool(100, 25, 800);
+        MatchPool open = new MatchPool(100, 25, 0);
+        for (MatchPool pool : List.of(capped, open)) {
+            pool.add(new MatchPool.Waiter("novice", null, 800, 0));
+            pool.add(new MatchPool.Waiter("master", null, 2800, 0));
+        }
+
+        assertEquals(0, capped.matchBatch(600 * SEC, this::record));
+        assertEquals(0, open.matchBatch(60 * SEC, this::record));  // window 1600
+        assertEquals(1, open.matchBatch(80 * SEC, this::record));  // window 2100
+        assertEquals(List.of("master-novice"), pairs);
+    }
+
+    @Test
+    public void failedOrCancelledPlayersAreNotLost() {
+        MatchPool pool = new MatchPool(100, 25, 800);
+        pool.add(new MatchPool.Waiter("a", null, 1200, 0));
+        pool.add(new MatchPool.Waiter("b", null, 1210, 0));
+        assertFalse(pool.add(new MatchPool.Waiter("a", null, 1200, 0)));
+
+        assertEquals(0, pool.matchBatch(0, (x, y) -> { throw new IOException("disk full"); }));
+        assertEquals(2, pool.size());
+
+        pool.remove("b");
+        assertEquals(0, pool.matchBatch(0, this::record));
+        assertEquals(1, pool.size());
+        assertTrue(pairs.isEmpty());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.chess.server.core;
+
+import com.example.chess.server.client.ClientHandler;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OnlineUserRegistryTest {
+
+    private static ClientHandler handler() {
+        return new ClientHandler(null, null, null, null, null);
+    }
+
+    @Test
+    public void sessionMovesThroughDisconnectingBeforeANewLogin() {
+        OnlineUserRegistry registry = new OnlineUserRegistry();
+        ClientHandler first = handler();
+        ClientHandler second = handler();
+
+        registry.markOnline("alice", first);
+        assertEquals(1, registry.onlineCount());
+        assertThrows(IllegalArgumentException.class, () -> registry.markOnline("alice", second));
+
+        assertTrue(registry.beginOffline("alice", first));
+        assertFalse(registry.beginOffline("alice", first));
+        assertEquals(OnlineUserRegistry.State.DISCONNECTING, registry.stateOf("alice"));
+        assertEquals(0, registry.onlineCount());
+        assertThrows(IllegalArgumentException.class, () -> registry.markOnline("alice", second));
+
+        registry.finishOffline("alice", first);
+        assertEquals(OnlineUserRegistry.State.OFFLINE, registry.stateOf("alice"));
+        registry.markOnline("alice", second);
+        assertEquals(OnlineUserRegistry.State.ONLINE, registry.stateOf("alice"));
+    }
+
+    @Test
+    public void staleConnectionCannotTakeDownNewSession() {
+        OnlineUserRegistry registry = new OnlineUserRegistry();
+        ClientHandler current = handler();
+
+        registry.markOnline("bob", current);
+        assertFalse(registry.beginOffline("bob", handler()));
+        registry.finishOffline("bob", handler());
+        assertEquals(OnlineUserRegistry.State.ONLINE, registry.stateOf("bob"));
+        assertEquals(1, registry.onlineCount());
+    }
+}
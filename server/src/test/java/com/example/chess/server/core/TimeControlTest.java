@@ -0,0 +1,39 @@
+package com.example.chess.server.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimeControlTest {
+
+    @Test
+    public void presetsAreCaseInsensitiveAndSharePoolsByName() {
+        assertSame(TimeControl.BULLET, TimeControl.preset("bullet"));
+        assertSame(TimeControl.BLITZ, TimeControl.preset(" Blitz "));
+        assertSame(TimeControl.RAPID, TimeControl.preset("RAPID"));
+        assertEquals("blitz", TimeControl.BLITZ.poolKey());
+        assertEquals(300_000L, TimeControl.BLITZ.baseMs());
+        assertEquals(3_000L, TimeControl.BLITZ.incrementMs());
+
+        assertThrows(IllegalArgumentException.class, () -> TimeControl.preset("classical"));
+        assertThrows(IllegalArgumentException.class, () -> TimeControl.preset(null));
+    }
+
+    @Test
+    public void customControlsPoolByBaseAndIncrement() {
+        TimeControl c = TimeControl.custom(180, 2);
+        assertEquals(180_000L, c.baseMs());
+        assertEquals(2_000L, c.incrementMs());
+        assertEquals("custom:180+2", c.poolKey());
+        assertEquals(c.poolKey(), TimeControl.custom(180, 2).poolKey());
+        assertNotEquals(c.poolKey(), TimeControl.custom(180, 0).poolKey());
+
+        TimeControl.custom(30, 0);
+        TimeControl.custom(TimeControl.MAX_CUSTOM_BASE_SECONDS, TimeControl.MAX_CUSTOM_INCREMENT_SECONDS);
+        assertThrows(IllegalArgumentException.class, () -> TimeControl.custom(29, 0));
+        assertThrows(IllegalArgumentException.class, () -> TimeControl.custom(TimeControl.MAX_CUSTOM_BASE_SECONDS + 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> TimeControl.custom(60, -1));
+        assertThrows(IllegalArgumentException.class,
+                () -> TimeControl.custom(60, TimeControl.MAX_CUSTOM_INCREMENT_SECONDS + 1));
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.chess.server.core.move;
+
+import com.example.chess.common.model.Game;
+import com.example.chess.server.fs.repository.GameRepository;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AsyncGameWriterTest {
+
+    @Test
+    public void coalescesSnapshotsQueuedWhileAWriteIsRunning() throws Exception {
+        RecordingRepo repo = new RecordingRepo();
+        repo.blockNext();
+        try (AsyncGameWriter writer = new AsyncGameWriter(repo, 16)) {
+            Game first = game("g1");
+            writer.submit(first);
+            assertTrue(repo.writeStarted.await(5, TimeUnit.SECONDS));
+
+            Game last = null;
+            for (int i = 0; i < 5; i++) {
+                last = game("g1");
+                writer.submit(last);
+            }
+            repo.release();
+
+            assertTrue(writer.flush(5_000));
+            assertEquals(List.of(first, last), repo.saved());
+        }
+    }
+
+    @Test
+    public void writeSyncDropsOlderPendingSnapshot() throws Exception {
+        RecordingRepo repo = new RecordingRepo();
+        repo.blockNext();
+        try (AsyncGameWriter writer = new AsyncGameWriter(repo, 16)) {
+            Game other = game("other");
+            writer.submit(other);
+            assertTrue(repo.writeStarted.await(5, TimeUnit.SECONDS));
+
+            Game stale = game("g1");
+            writer.submit(stale);
+            Game current = game("g1");
+            Thread sync = new Thread(() -> {
+                try {
+                    writer.writeSync(current);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            sync.start();
+            sync.join(5_000);
+            repo.release();
+
+            assertTrue(writer.flush(5_000));
+            assertEquals(List.of(current), repo.saved().stream().filter(g -> g.getId().equals("g1")).toList());
+            assertTrue(repo.saved().contains(other));
+        }
+    }
+
+    @Test
+    public void retriesFailedWriteUntilItSucceeds() throws Exception {
+        RecordingRepo repo = new RecordingRepo();
+        repo.failures.set(2);
+        try (AsyncGameWriter writer = new AsyncGameWriter(repo, 1)) {
+            Game g = game("g1");
+            writer.submit(g);
+            // Queue stays full behind the failing game; the retry must not be lost.
+            writer.submit(game("g2"));
+
+            assertTrue(writer.flush(5_000));
+            assertTrue(repo.saved().contains(g));
+            assertEquals(2, repo.saved().size());
+            assertEquals(4, repo.attempts.get());
+        }
+    }
+
+    @Test
+    public void closeWritesEverythingStillQueued() {
+        RecordingRepo repo = new RecordingRepo();
+        AsyncGameWriter writer = new AsyncGameWriter(repo, 64);
+        for (int i = 0; i < 50; i++) writer.submit(game("g" + i));
+        writer.close();
+
+        assertEquals(50, repo.saved().size());
+    }
+
+    private static Game game(String id) {
+        Game g = new Game();
+        g.setId(id);
+        return g;
+    }
+
+    private static final class RecordingRepo implements GameRepository {
+        private final List<Game> saved = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final CountDownLatch writeStarted = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile boolean blockNext;
+
+        void blockNext() {
+            blockNext = true;
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        List<Game> saved() {
+            synchronized (saved) {
+                return new ArrayList<>(saved);
+            }
+        }
+
+        @Override
+        public void saveGame(Game game) throws IOException {
+            attempts.incrementAndGet();
+            if (blockNext) {
+                blockNext = false;
+                writeStarted.countDown();
+                try {
+                    assertTrue(released.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) throw new IOException("Disk full");
+            saved.add(game);
+        }
+
+        @Override
+        public Optional<Game> findGameById(String id) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Map<String, Game> findGamesForUser(String username) {
+            return Map.of();
+        }
+
+        @Override
+        public List<Game> loadAllGames() {
+            return List.of();
+        }
+    }
+}
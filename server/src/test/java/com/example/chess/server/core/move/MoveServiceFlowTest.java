@@ -32,6 +32,7 @@ public class MoveServiceFlowTest {
 
             int beforeSaves = repo.saveCount.get();
             service.makeMove("g1", white, "e2e4");
+            assertTrue(service.flushPersistence(2_000L));
             int afterSaves = repo.saveCount.get();
 
             assertTrue(afterSaves > beforeSaves);
@@ -90,6 +91,7 @@ public class MoveServiceFlowTest {
             black.setUsername("black");
 
             service.makeMove("g1", black, "e7e5");
+            assertTrue(service.flushPersistence(2_000L));
 
             Game stored = repo.findGameById("g1").orElse(null);
             assertNotNull(stored);
@@ -6,6 +6,8 @@ import com.example.chess.common.model.Result;
 import com.example.chess.server.client.ClientHandler;
 import com.example.chess.server.core.ClockService;
 import com.example.chess.server.core.ReconnectService;
+import com.example.chess.server.util.TimerService;
+import org.junit.After;
 import org.junit.Test;
 
 import java.util.concurrent.CountDownLatch;
@@ -16,6 +18,18 @@ import static org.junit.Assert.*;
 
 public class ReconnectFlowTest {
 
+    private ReconnectService reconnects;
+
+    @After
+    public void closeReconnects() {
+        if (reconnects != null) reconnects.close();
+    }
+
+    private ReconnectService reconnects(long graceMs) {
+        reconnects = new ReconnectService(graceMs);
+        return reconnects;
+    }
+
     @Test
     public void disconnectWithNoMovesAbortsGame() throws Exception {
         ActiveGames games = new ActiveGames();
@@ -23,7 +37,7 @@ public class ReconnectFlowTest {
         CountDownLatch finished = new CountDownLatch(1);
 
         GameFinisher finisher = new GameFinisher(store, new ClockService(), games, g -> finished.countDown());
-        ReconnectFlow flow = new ReconnectFlow(games, new ReconnectService(10L), finisher, store);
+        ReconnectFlow flow = new ReconnectFlow(games, reconnects(10L), finisher, store);
 
         Game game = new Game();
         game.setId("g1");
@@ -55,7 +69,7 @@ public class ReconnectFlowTest {
         CountDownLatch finished = new CountDownLatch(1);
 
         GameFinisher finisher = new GameFinisher(store, new ClockService(), games, g -> finished.countDown());
-        ReconnectFlow flow = new ReconnectFlow(games, new ReconnectService(200L), finisher, store);
+        ReconnectFlow flow = new ReconnectFlow(games, reconnects(200L), finisher, store);
 
         Game game = new Game();
         game.setId("g1");
@@ -88,7 +102,7 @@ public class ReconnectFlowTest {
         InMemoryStore store = new InMemoryStore();
 
         GameFinisher finisher = new GameFinisher(store, new ClockService(), games, null);
-        ReconnectFlow flow = new ReconnectFlow(games, new ReconnectService(200L), finisher, store);
+        ReconnectFlow flow = new ReconnectFlow(games, reconnects(200L), finisher, store);
 
         Game game = new Game();
         game.setId("g1");
@@ -137,4 +151,19 @@ public class ReconnectFlowTest {
         public void sendInfo(String message) {
         }
     }
+
+    @Test
+    public void immediateDropsLeaveNothingPending() throws Exception {
+        // A 1 ms tick lets the timer fire a 0 ms drop while scheduleDrop is still returning.
+        try (TimerService timers = new TimerService(1, 64, 1, 16)) {
+            ReconnectService service = new ReconnectService(0, timers);
+            int n = 20_000;
+            CountDownLatch fired = new CountDownLatch(n);
+            for (int i = 0; i < n; i++) service.scheduleDrop("g" + i + ":alice", fired::countDown, 0);
+
+            assertTrue(fired.await(10, TimeUnit.SECONDS));
+            assertEquals(0, service.pendingCount());
+        }
+    }
+
 }
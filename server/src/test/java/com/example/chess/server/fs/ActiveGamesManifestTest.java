@@ -0,0 +1,59 @@
+package com.example.chess.server.fs;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ActiveGamesManifestTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void appendsChangesAndCompactsOnceMostLinesAreDead() throws Exception {
+        Path file = temp.getRoot().toPath().resolve("active-games.log");
+        try (ActiveGamesManifest manifest = new ActiveGamesManifest(file)) {
+            manifest.replace(List.of());
+            manifest.add("keep");
+            for (int i = 0; i < ActiveGamesManifest.MIN_COMPACT_LINES; i++) {
+                manifest.add("g" + i);
+                manifest.remove("g" + i);
+            }
+            assertEquals(Set.of("keep"), manifest.read());
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertTrue("lines " + lines.size(), lines.size() < ActiveGamesManifest.MIN_COMPACT_LINES);
+        assertEquals(Set.of("keep"), new ActiveGamesManifest(file).read());
+    }
+
+    @Test
+    public void survivesTornLastLine() throws Exception {
+        Path file = temp.getRoot().toPath().resolve("active-games.log");
+        Files.writeString(file, "+a\n+b\n-", StandardCharsets.UTF_8);
+
+        try (ActiveGamesManifest manifest = new ActiveGamesManifest(file)) {
+            assertEquals(Set.of("a", "b"), manifest.read());
+            manifest.remove("a");
+        }
+        assertEquals(Set.of("b"), new ActiveGamesManifest(file).read());
+    }
+
+    @Test
+    public void malformedLogIsQuarantined() throws Exception {
+        Path file = temp.getRoot().toPath().resolve("active-games.log");
+        Files.writeString(file, "+a\n[\"b\"]\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE);
+
+        assertNull(new ActiveGamesManifest(file).read());
+        assertFalse(Files.exists(file));
+    }
+}
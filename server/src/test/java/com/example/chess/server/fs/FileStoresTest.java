@@ -2,18 +2,25 @@ package com.example.chess.server.fs;
 
 import com.example.chess.common.UserModels.User;
 import com.example.chess.common.model.Game;
+import com.example.chess.common.model.Result;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
@@ -54,6 +61,218 @@ public class FileStoresTest {
         assertTrue(stores.findGamesForUser("alice").containsKey("g1"));
     }
 
+    @Test
+    public void finishedGameMovesToArchive() throws Exception {
+        Path root = temp.newFolder("data").toPath();
+        FileStores stores = new FileStores(root);
+        addUsers(stores, "alice", "bob");
+
+        Game game = new Game();
+        game.setId("g1");
+        game.setWhiteUser("alice");
+        game.setBlackUser("bob");
+        game.setCreatedAt(1_000L);
+        stores.saveGame(game);
+
+        game.recordMove("alice", "e2e4");
+        game.recordMove("bob", "e7e5");
+        game.recordMove("alice", "e7e8q");
+        game.addCapturedByWhite('p');
+        game.setResult(Result.WHITE_WIN);
+        game.setResultReason("Time.");
+        stores.saveGame(game);
+
+        assertFalse(Files.exists(root.resolve("games").resolve("g1.json")));
+        assertFalse(Files.exists(root.resolve("games").resolve("g1.json.lock")));
+
+        Game loaded = new FileStores(root).findGameById("g1").orElseThrow();
+        assertEquals(Result.WHITE_WIN, loaded.getResult());
+        assertEquals("timeout", loaded.getResultReason());
+        assertEquals(game.getMoves(), loaded.getMoves());
+        assertEquals(3, loaded.getMoveHistory().size());
+        assertEquals("bob", loaded.getMoveHistory().get(1).getBy());
+        assertEquals(game.getMoveHistory().get(2).getAtMs(), loaded.getMoveHistory().get(2).getAtMs());
+        assertEquals(game.getBoard().toPrettyString(), loaded.getBoard().toPrettyString());
+        assertEquals(game.getCapturedByWhite(), loaded.getCapturedByWhite());
+
+        assertTrue(stores.findGamesForUser("bob").containsKey("g1"));
+        assertEquals(1, stores.loadAllGames().size());
+    }
+
+    @Test
+    public void closeReleasesArchiveChannels() throws Exception {
+        Path root = temp.newFolder("data").toPath();
+        FileStores stores = new FileStores(root);
+        Game game = new Game();
+        game.setId("g1");
+        game.setWhiteUser("alice");
+        game.setBlackUser("bob");
+        game.setResult(Result.DRAW);
+        stores.saveGame(game);
+        assertTrue(stores.findGameById("g1").isPresent());
+
+        stores.close();
+        assertFalse(stores.findGameById("g1").isPresent());
+        assertThrows(IOException.class, () -> stores.importFinishedGames(List.of(game)));
+
+        try (FileStores reopened = new FileStores(root)) {
+            assertEquals(Result.DRAW, reopened.findGameById("g1").orElseThrow().getResult());
+        }
+    }
+
+    @Test
+    public void readsArchiveAcrossSegmentsWithMmapDisabled() throws Exception {
+        System.setProperty("chess.games.archive.mmap", "false");
+        try {
+            readsArchiveAcrossSegments();
+        } finally {
+            System.clearProperty("chess.games.archive.mmap");
+        }
+    }
+
+    @Test
+    public void readsArchiveAcrossSegmentsWithMmap() throws Exception {
+        readsArchiveAcrossSegments();
+    }
+
+    private void readsArchiveAcrossSegments() throws Exception {
+        Path root = temp.newFolder("data").toPath();
+        System.setProperty("chess.games.archive.segmentBytes", String.valueOf(1 << 16));
+        try (FileStores stores = new FileStores(root)) {
+            addUsers(stores, "alice", "bob");
+            List<Game> games = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                Game g = new Game();
+                g.setId("g" + i);
+                g.setWhiteUser("alice");
+                g.setBlackUser("bob");
+                g.recordMove("alice", "e2e4");
+                g.setResult(Result.DRAW);
+                games.add(g);
+            }
+            stores.importFinishedGames(games.subList(0, 1_000));
+            assertEquals(Result.DRAW, stores.findGameById("g0").orElseThrow().getResult());
+            assertEquals(Result.DRAW, stores.findGameById("g999").orElseThrow().getResult());
+
+            // Reads of the active segment must see records appended after the first read.
+            stores.importFinishedGames(games.subList(1_000, 2_000));
+            assertEquals(List.of("e2e4"), stores.findGameById("g1999").orElseThrow().getMoves());
+            assertEquals(2_000, stores.findGamesForUser("bob").size());
+        } finally {
+            System.clearProperty("chess.games.archive.segmentBytes");
+        }
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(root.resolve("archive"), "segment-*.seg")) {
+            int n = 0;
+            for (Path ignored : segments) n++;
+            assertTrue("segments " + n, n > 1);
+        }
+    }
+
+    @Test
+    public void archivesFinishedJsonGamesOnStartup() throws Exception {
+        Path root = temp.newFolder("data").toPath();
+        System.setProperty("chess.games.archive.enabled", "false");
+        try {
+            FileStores legacy = new FileStores(root);
+            Game game = new Game();
+            game.setId("g1");
+            game.setWhiteUser("alice");
+            game.setBlackUser("bob");
+            game.setResult(Result.DRAW);
+            legacy.saveGame(game);
+        } finally {
+            System.clearProperty("chess.games.archive.enabled");
+        }
+        assertTrue(Files.exists(root.resolve("games").resolve("g1.json")));
+
+        FileStores stores = new FileStores(root);
+        assertEquals(1, stores.archiveFinishedGames());
+        assertFalse(Files.exists(root.resolve("games").resolve("g1.json")));
+        assertEquals(Result.DRAW, stores.findGameById("g1").orElseThrow().getResult());
+    }
+
+    @Test
+    public void recoversOnlyGamesListedInActiveManifest() throws Exception {
+        Path root = temp.newFolder("data").toPath();
+        FileStores stores = new FileStores(root);
+        addUsers(stores, "alice", "bob");
+
+        for (String id : new String[] {"live", "done"}) {
+            Game game = new Game();
+            game.setId(id);
+            game.setWhiteUser("alice");
+            game.setBlackUser("bob");
+            stores.saveGame(game);
+        }
+        Game done = stores.findGameById("done").orElseThrow();
+        done.setResult(Result.DRAW);
+        stores.saveGame(done);
+
+        String manifest = Files.readString(root.resolve("active-games.log"));
+        assertTrue(manifest.contains("+live\n"));
+        assertTrue(manifest.endsWith("-done\n"));
+
+        List<Game> ongoing = new FileStores(root).loadOngoingGames();
+        assertEquals(1, ongoing.size());
+        assertEquals("live", ongoing.get(0).getId());
+
+        Files.delete(root.resolve("active-games.log"));
+        assertEquals(1, new FileStores(root).loadOngoingGames().size());
+        assertTrue(Files.exists(root.resolve("active-games.log")));
+    }
+
+    @Test
+    public void forEachGameVisitsLiveAndArchivedGamesOnce() throws Exception {
+        Path root = temp.newFolder("data").toPath();
+        FileStores stores = new FileStores(root);
+        addUsers(stores, "alice", "bob");
+
+        for (int i = 0; i < 20; i++) {
+            Game game = new Game();
+            game.setId("g" + i);
+            game.setWhiteUser("alice");
+            game.setBlackUser("bob");
+            if (i % 2 == 0) game.setResult(Result.DRAW);
+            stores.saveGame(game);
+        }
+
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        Set<Thread> readers = ConcurrentHashMap.newKeySet();
+        AtomicInteger visits = new AtomicInteger();
+        stores.forEachGame(g -> {
+            visits.incrementAndGet();
+            seen.add(g.getId());
+            readers.add(Thread.currentThread());
+        });
+        assertEquals(20, visits.get());
+        assertEquals(20, seen.size());
+        stores.forEachGame(g -> readers.add(Thread.currentThread()));
+        assertTrue("reader threads " + readers.size(),
+                readers.size() <= Runtime.getRuntime().availableProcessors());
+        assertEquals(20, stores.loadAllGames().size());
+    }
+
+    @Test
+    public void stripedLockModeWritesNoSidecarFiles() throws Exception {
+        Path root = temp.newFolder("data").toPath();
+        System.setProperty("chess.games.lockMode", "striped");
+        try {
+            FileStores stores = new FileStores(root);
+            addUsers(stores, "alice", "bob");
+            Game game = new Game();
+            game.setId("g1");
+            game.setWhiteUser("alice");
+            game.setBlackUser("bob");
+            stores.saveGame(game);
+
+            assertTrue(stores.findGamesForUser("alice").containsKey("g1"));
+            assertFalse(Files.exists(root.resolve("games").resolve("g1.json.lock")));
+            assertTrue(Files.exists(root.resolve(".server.lock")));
+        } finally {
+            System.clearProperty("chess.games.lockMode");
+        }
+    }
+
     @Test
     public void updateUsersIsSerialized() throws Exception {
         Path root = temp.newFolder("data").toPath();
@@ -142,4 +361,15 @@ public class FileStoresTest {
         }
         assertTrue(quarantined);
     }
+
+    private static void addUsers(FileStores stores, String... names) throws Exception {
+        stores.updateUsers(users -> {
+            for (String name : names) {
+                User u = new User();
+                u.setUsername(name);
+                users.put(name, u);
+            }
+            return null;
+        });
+    }
 }
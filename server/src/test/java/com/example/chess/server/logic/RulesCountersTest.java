@@ -0,0 +1,35 @@
+package com.example.chess.server.logic;
+
+import com.example.chess.common.board.Board;
+import com.example.chess.common.board.Move;
+import com.example.chess.common.model.Game;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RulesCountersTest {
+
+    @Test
+    public void countsEngineWorkOnlyWhenEnabled() {
+        RulesCounters counters = RulesCounters.enabled();
+        RulesEngine rules = new RulesEngine(counters);
+        Game game = new Game();
+        Board board = Board.initial();
+
+        Move e4 = Move.parse("e2e4");
+        assertTrue(rules.isLegalMove(game, board, e4));
+        rules.applyMove(rules.trialCopy(board), game, e4, false);
+        assertFalse(rules.isKingInCheck(board, true));
+        assertTrue(rules.hasAnyLegalMove(game, board, true));
+
+        assertEquals(0, counters.movesApplied());
+        assertTrue(counters.pseudoMoves() > 0);
+        assertEquals(1 + counters.pseudoMoves(), counters.legalityChecks());
+        assertTrue(counters.boardCopies() >= 2);
+        assertEquals(counters.boardCopies(), counters.checkTests());
+
+        RulesEngine quiet = new RulesEngine();
+        quiet.hasAnyLegalMove(game, board, true);
+        assertEquals(0, RulesCounters.DISABLED.pseudoMoves());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.chess.server.util;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.Assert.*;
+
+public class AsyncLogHandlerTest {
+
+    /** Collects what the writer hands over; the first publish blocks until released to fill the ring. */
+    private static final class CollectingTarget extends Handler {
+        final StringBuffer text = new StringBuffer();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch firstWrite = new CountDownLatch(1);
+
+        @Override
+        public void publish(LogRecord record) {
+            firstWrite.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            text.append(getFormatter().format(record));
+        }
+
+        @Override public void flush() {}
+        @Override public void close() {}
+    }
+
+    private static AsyncLogHandler handler(CollectingTarget target, AsyncLogHandler.Policy policy) {
+        target.setFormatter(AsyncLogHandler.passThrough());
+        AsyncLogHandler handler = new AsyncLogHandler(List.of(target), 2, policy, 16);
+        handler.setFormatter(new Formatter() {
+            @Override
+            public String format(LogRecord record) {
+                return record.getMessage() + "\n";
+            }
+        });
+        return handler;
+    }
+
+    @Test
+    public void dropsWhenFullAndWritesTheRestInOrder() throws Exception {
+        CollectingTarget target = new CollectingTarget();
+        AsyncLogHandler handler = handler(target, AsyncLogHandler.Policy.DROP);
+
+        handler.publish(new LogRecord(Level.INFO, "a"));
+        assertTrue(target.firstWrite.await(5, TimeUnit.SECONDS)); // writer is now stuck on "a"
+        handler.publish(new LogRecord(Level.INFO, "b"));
+        handler.publish(new LogRecord(Level.INFO, "c"));
+        handler.publish(new LogRecord(Level.INFO, "d"));
+        assertEquals(1, handler.droppedCount());
+
+        target.release.countDown();
+        handler.close();
+
+        String out = target.text.toString();
+        assertTrue(out, out.startsWith("a\nb\nc\n"));
+        assertFalse(out, out.contains("d\n"));
+        assertTrue(out, out.contains("1 log message(s) dropped"));
+    }
+
+    @Test
+    public void blockPolicyWaitsForRoomAndCloseWritesEverythingQueued() throws Exception {
+        CollectingTarget target = new CollectingTarget();
+        AsyncLogHandler handler = handler(target, AsyncLogHandler.Policy.BLOCK);
+
+        handler.publish(new LogRecord(Level.INFO, "a"));
+        assertTrue(target.firstWrite.await(5, TimeUnit.SECONDS));
+        handler.publish(new LogRecord(Level.INFO, "b"));
+        handler.publish(new LogRecord(Level.INFO, "c"));
+
+        CountDownLatch published = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            handler.publish(new LogRecord(Level.INFO, "d"));
+            published.countDown();
+        });
+        producer.start();
+        assertFalse("producer should wait while the ring is full", published.await(200, TimeUnit.MILLISECONDS));
+
+        target.release.countDown();
+        assertTrue(published.await(5, TimeUnit.SECONDS));
+        for (String m : new String[] {"e", "f", "g"}) handler.publish(new LogRecord(Level.INFO, m));
+        handler.close();
+
+        assertEquals("a\nb\nc\nd\ne\nf\ng\n", target.text.toString());
+        assertEquals(0, handler.droppedCount());
+    }
+}
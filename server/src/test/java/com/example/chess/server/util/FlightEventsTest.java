@@ -0,0 +1,82 @@
+package com.example.chess.server.util;
+
+import com.example.chess.common.UserModels.User;
+import com.example.chess.common.model.Game;
+import com.example.chess.server.core.ClockService;
+import com.example.chess.server.core.move.MoveService;
+import com.example.chess.server.fs.FileStores;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FlightEventsTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void movesAndWritesAreRecordedWithStageTimesAndSizes() throws Exception {
+        Path data = temp.newFolder("data").toPath();
+        Path dump = temp.getRoot().toPath().resolve("moves.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("chess.MoveProcessed").withoutThreshold();
+            recording.enable("chess.PersistenceWrite").withoutThreshold();
+            recording.start();
+
+            try (FileStores stores = new FileStores(data);
+                 MoveService service = new MoveService(stores, new ClockService(), g -> { })) {
+                Game game = new Game();
+                game.setId("g1");
+                service.registerGame(game, "white", "black", null, null, true);
+
+                service.makeMove("g1", user("white"), "e2e4");
+                assertThrows(IllegalArgumentException.class, () -> service.makeMove("g1", user("black"), "e7e4"));
+                assertTrue(service.flushPersistence(5_000L));
+            }
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        List<RecordedEvent> moves = events.stream()
+                .filter(e -> e.getEventType().getName().equals("chess.MoveProcessed")).toList();
+        assertEquals(2, moves.size());
+
+        RecordedEvent legal = moves.stream().filter(e -> e.getString("move").equals("e2e4")).findFirst().orElseThrow();
+        assertEquals("g1", legal.getString("gameId"));
+        assertTrue(legal.getBoolean("legal"));
+        assertNull(legal.getString("rejection"));
+        assertTrue(legal.getDuration("validateNanos").toNanos() > 0);
+        assertTrue(legal.getDuration("applyNanos").toNanos() > 0);
+        assertTrue(legal.getDuration("mateDetectionNanos").toNanos() > 0);
+
+        RecordedEvent rejected = moves.stream().filter(e -> e.getString("move").equals("e7e4")).findFirst().orElseThrow();
+        assertFalse(rejected.getBoolean("legal"));
+        assertNotNull(rejected.getString("rejection"));
+        assertEquals(0, rejected.getDuration("applyNanos").toNanos());
+
+        List<RecordedEvent> writes = events.stream()
+                .filter(e -> e.getEventType().getName().equals("chess.PersistenceWrite"))
+                .filter(e -> e.getString("path").endsWith("g1.json")).toList();
+        assertFalse(writes.isEmpty());
+        for (RecordedEvent w : writes) {
+            assertTrue(w.getLong("bytes") > 0);
+            assertTrue(w.getDuration("fsyncNanos").toNanos() > 0);
+        }
+    }
+
+    private static User user(String name) {
+        User u = new User();
+        u.setUsername(name);
+        return u;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.chess.server.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HashedWheelTimerTest {
+
+    @Test
+    public void firesAfterDelayAcrossWheelRounds() throws Exception {
+        try (HashedWheelTimer timer = new HashedWheelTimer("test-wheel", 5, 4)) {
+            CountDownLatch fired = new CountDownLatch(1);
+            long start = System.nanoTime();
+            timer.schedule(fired::countDown, 60);
+
+            assertTrue(fired.await(2, TimeUnit.SECONDS));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 60);
+        }
+    }
+
+    @Test
+    public void cancelledTimeoutNeverFires() throws Exception {
+        try (HashedWheelTimer timer = new HashedWheelTimer("test-wheel", 5, 8)) {
+            AtomicInteger runs = new AtomicInteger();
+            HashedWheelTimer.Timeout t = timer.schedule(runs::incrementAndGet, 30);
+            assertTrue(t.cancel());
+
+            CountDownLatch later = new CountDownLatch(1);
+            timer.schedule(later::countDown, 60);
+            assertTrue(later.await(2, TimeUnit.SECONDS));
+            assertEquals(0, runs.get());
+            assertFalse(t.cancel());
+        }
+    }
+
+    @Test
+    public void pendingCountFollowsScheduleFireAndCancel() throws Exception {
+        try (HashedWheelTimer timer = new HashedWheelTimer("test-wheel", 5, 8)) {
+            CountDownLatch fired = new CountDownLatch(1);
+            timer.schedule(fired::countDown, 20);
+            HashedWheelTimer.Timeout far = timer.schedule(() -> { }, 60_000);
+            assertEquals(2, timer.pendingCount());
+
+            assertTrue(fired.await(2, TimeUnit.SECONDS));
+            far.cancel();
+            assertEquals(0, timer.pendingCount());
+            assertEquals(1, timer.firedCount());
+            assertTrue(timer.maxLagMs() >= 0);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.chess.server.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketBoundsContainTheirValues() {
+        for (long v : new long[] {0, 1, 7, 8, 9, 15, 16, 17, 100, 1_000, 123_456, 1L << 30, (1L << 30) + 12_345}) {
+            int idx = LatencyHistogram.indexOf(v);
+            assertTrue("value " + v, LatencyHistogram.upperBound(idx) >= v);
+            assertTrue("value " + v, idx == 0 || LatencyHistogram.upperBound(idx - 1) < v);
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinOneSubBucket() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 10_000; v++) h.record(v);
+
+        assertEquals(10_000, h.count());
+        assertEquals(10_000, h.max());
+        long p50 = h.percentile(0.50);
+        long p99 = h.percentile(0.99);
+        assertTrue("p50=" + p50, p50 >= 5_000 && p50 <= 5_000 * 9 / 8);
+        assertTrue("p99=" + p99, p99 >= 9_900 && p99 <= 10_000);
+        assertEquals(10_000, h.percentile(1.0));
+        assertEquals(0, new LatencyHistogram().percentile(0.5));
+    }
+
+    @Test
+    public void concurrentRecordsAreAllCounted() throws Exception {
+        LatencyHistogram h = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (long v = 1; v <= 50_000; v++) h.record(v);
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+
+        assertEquals(200_000, h.count());
+        assertEquals(4 * (50_000L * 50_001 / 2), h.sum());
+        assertEquals(50_000, h.max());
+    }
+
+    @Test
+    public void cumulativeCountsAreMonotonicAndEndWithTotal() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(100);
+        h.record(900);
+        h.record(3_000);
+        h.record(2_000_000);
+
+        long[] c = h.cumulativeCounts(new long[] {500, 1_000, 5_000, 1_000_000});
+        assertArrayEquals(new long[] {1, 2, 3, 3, 4}, c);
+    }
+}
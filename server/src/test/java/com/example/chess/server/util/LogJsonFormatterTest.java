@@ -0,0 +1,41 @@
+package com.example.chess.server.util;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.Assert.*;
+
+public class LogJsonFormatterTest {
+
+    @Test
+    public void writesOneEscapedObjectPerLineWithContext() {
+        Log.JsonFormatter formatter = new Log.JsonFormatter();
+        LogRecord record = new LogRecord(Level.WARNING, "bad \"move\"\nfrom\tclient");
+        record.setLoggerName("ChessServer");
+        record.setThrown(new IllegalStateException("boom"));
+
+        String line;
+        try (Log.ContextScope ignored = Log.withContext("c-1", "10.0.0.7", "alice")) {
+            line = formatter.format(record);
+        }
+
+        assertTrue(line.endsWith("}\n"));
+        assertEquals(1, line.split("\n").length);
+        JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+        assertEquals("WARNING", json.get("level").getAsString());
+        assertEquals("bad \"move\"\nfrom\tclient", json.get("msg").getAsString());
+        assertEquals("c-1", json.get("corrId").getAsString());
+        assertEquals("10.0.0.7", json.get("clientIp").getAsString());
+        assertEquals("alice", json.get("user").getAsString());
+        assertTrue(json.get("error").getAsString().startsWith("java.lang.IllegalStateException: boom"));
+
+        String plain = formatter.format(new LogRecord(Level.INFO, "ok"));
+        JsonObject second = JsonParser.parseString(plain).getAsJsonObject();
+        assertFalse(second.has("corrId"));
+        assertFalse(second.has("error"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.chess.server.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MetricsExpositionTest {
+
+    @Test
+    public void rendersPrometheusTextWithRegisteredSeries() {
+        ServerMetrics metrics = new ServerMetrics(() -> 3, () -> 0, () -> 1);
+        metrics.onRequest(RequestType.PING);
+        metrics.onRequest(RequestType.PING);
+        metrics.onRequestCompleted(RequestType.PING, TimeUnit.MICROSECONDS.toNanos(1_500));
+        metrics.registerGauge("chess_test_depth", "Test depth.", "shard", "0", () -> 7);
+        MetricsExposition exposition = new MetricsExposition(metrics);
+
+        String text = exposition.render(MetricsExposition.Format.PROMETHEUS).toString();
+
+        assertTrue(text, text.contains("# TYPE chess_requests_total counter\nchess_requests_total 2\n"));
+        assertTrue(text, text.contains("chess_online_users 3\n"));
+        assertTrue(text, text.contains("chess_requests_by_type_total{type=\"ping\"} 2\n"));
+        assertFalse(text, text.contains("type=\"login\""));
+        assertTrue(text, text.contains("chess_request_duration_seconds_bucket{type=\"ping\",le=\"0.0025\"} 1\n"));
+        assertTrue(text, text.contains("chess_request_duration_seconds_sum{type=\"ping\"} 0.001500\n"));
+        assertTrue(text, text.contains("chess_test_depth{shard=\"0\"} 7\n"));
+        assertFalse(text, text.contains("# EOF"));
+
+        metrics.registerGauge("chess_test_late", "Registered after the first scrape.", () -> -1);
+        text = exposition.render(MetricsExposition.Format.PROMETHEUS).toString();
+        assertTrue(text, text.contains("chess_test_late -1\n"));
+    }
+
+    @Test
+    public void openMetricsNamesCounterFamiliesWithoutTotalAndEndsWithEof() {
+        ServerMetrics metrics = new ServerMetrics(() -> 0, () -> 0, () -> 0);
+        metrics.onRequest(RequestType.LOGIN);
+
+        String text = new MetricsExposition(metrics).render(MetricsExposition.Format.OPENMETRICS).toString();
+
+        assertTrue(text, text.contains("# TYPE chess_requests counter\nchess_requests_total 1\n"));
+        assertTrue(text, text.contains("# TYPE chess_requests_by_type counter\n"));
+        assertTrue(text, text.endsWith("# EOF\n"));
+    }
+
+    @Test
+    public void registeredCountersAreTypedAsCounters() {
+        ServerMetrics metrics = new ServerMetrics(() -> 0, () -> 0, () -> 0);
+        metrics.registerCounter("chess_test_fired_total", "Test firings.", () -> 5);
+        metrics.registerCounter("chess_test_rejected_total", "Test rejections.", "pool", "io", () -> 2);
+        assertThrows(IllegalArgumentException.class, () -> metrics.registerCounter("chess_test_fired", "", () -> 0));
+        MetricsExposition exposition = new MetricsExposition(metrics);
+
+        String prom = exposition.render(MetricsExposition.Format.PROMETHEUS).toString();
+        assertTrue(prom, prom.contains("# TYPE chess_test_fired_total counter\nchess_test_fired_total 5\n"));
+        assertTrue(prom, prom.contains("chess_test_rejected_total{pool=\"io\"} 2\n"));
+
+        String om = exposition.render(MetricsExposition.Format.OPENMETRICS).toString();
+        assertTrue(om, om.contains("# TYPE chess_test_fired counter\nchess_test_fired_total 5\n"));
+        assertTrue(om, om.contains("# TYPE chess_test_rejected counter\n"));
+    }
+
+    @Test
+    public void writesFixedPointMicros() {
+        MetricsExposition.Buffer b = new MetricsExposition.Buffer(1);
+        b.writeMicros(0);
+        b.write((byte) ' ');
+        b.writeMicros(12_345_678);
+        b.write((byte) ' ');
+        b.writeLong(-42);
+        assertEquals("0.000000 12.345678 -42", b.toString());
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.chess.server.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MonitoredThreadPoolExecutorTest {
+
+    @Test
+    public void recordsQueueWaitAndCountsRejections() throws Exception {
+        MonitoredThreadPoolExecutor pool = new MonitoredThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), Thread::new, new ThreadPoolExecutor.AbortPolicy());
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch queuedRan = new CountDownLatch(1);
+            pool.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            pool.execute(queuedRan::countDown);
+            assertThrows(RejectedExecutionException.class, () -> pool.execute(() -> {}));
+            assertEquals(1, pool.rejectedCount());
+
+            Thread.sleep(20);
+            release.countDown();
+            assertTrue(queuedRan.await(5, TimeUnit.SECONDS));
+
+            assertEquals(2, pool.taskWait().count());
+            assertTrue("max wait " + pool.taskWait().max(), pool.taskWait().max() >= 15_000);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.chess.server.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class PrometheusMetricsServerTest {
+
+    @Test
+    public void gzipBodyDecodesToThePlainBody() throws Exception {
+        ServerMetrics metrics = new ServerMetrics(() -> 0, () -> 0, () -> 0);
+        // Random label values keep the compressed body above the 4 KB initial buffer.
+        for (int i = 0; i < 400; i++) {
+            metrics.registerGauge("chess_test_gauge", "Test gauge.", "id", UUID.randomUUID().toString(), () -> 1);
+        }
+        MetricsExposition exposition = new MetricsExposition(metrics);
+
+        try (PrometheusMetricsServer server = new PrometheusMetricsServer(metrics)) {
+            for (MetricsExposition.Format format : MetricsExposition.Format.values()) {
+                MetricsExposition.Buffer text = exposition.render(format);
+                byte[] plain = Arrays.copyOf(text.array(), text.size());
+                MetricsExposition.Buffer gz = server.gzip(text);
+
+                assertTrue("compressed " + gz.size(), gz.size() > 4 * 1024);
+                assertArrayEquals(plain, gunzip(gz));
+            }
+        }
+    }
+
+    @Test
+    public void cacheNeverServesGzipToAPlainRequest() throws Exception {
+        System.setProperty("chess.metrics.prometheus.cacheMs", "60000");
+        try (PrometheusMetricsServer server = new PrometheusMetricsServer(new ServerMetrics(() -> 0, () -> 0, () -> 0))) {
+            synchronized (server) {
+                assertTrue(isGzip(server.render(MetricsExposition.Format.PROMETHEUS, true)));
+                MetricsExposition.Buffer plain = server.render(MetricsExposition.Format.PROMETHEUS, false);
+                assertFalse(isGzip(plain));
+                assertTrue(plain.toString().startsWith("# HELP "));
+                assertSame(plain, server.render(MetricsExposition.Format.PROMETHEUS, false));
+
+                assertFalse(isGzip(server.render(MetricsExposition.Format.OPENMETRICS, false)));
+                assertTrue(isGzip(server.render(MetricsExposition.Format.OPENMETRICS, true)));
+                assertFalse(isGzip(server.render(MetricsExposition.Format.OPENMETRICS, false)));
+            }
+        } finally {
+            System.clearProperty("chess.metrics.prometheus.cacheMs");
+        }
+    }
+
+    private static boolean isGzip(MetricsExposition.Buffer body) {
+        return body.size() > 2 && body.array()[0] == (byte) 0x1f && body.array()[1] == (byte) 0x8b;
+    }
+
+    private static byte[] gunzip(MetricsExposition.Buffer gz) throws Exception {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gz.array(), 0, gz.size()))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.chess.server.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+public class SerialExecutorTest {
+
+    @Test
+    public void rejectedTaskIsNotLeftQueued() {
+        List<Runnable> drains = new ArrayList<>();
+        boolean[] rejecting = {true};
+        Executor delegate = r -> {
+            if (rejecting[0]) throw new RejectedExecutionException("Pool saturated");
+            drains.add(r);
+        };
+        SerialExecutor serial = new SerialExecutor(delegate);
+        List<String> ran = new ArrayList<>();
+
+        assertThrows(RejectedExecutionException.class, () -> serial.execute(() -> ran.add("rejected")));
+        assertEquals(0, serial.queued());
+
+        rejecting[0] = false;
+        serial.execute(() -> ran.add("accepted"));
+        assertEquals(1, serial.queued());
+        assertEquals(1, drains.size());
+        drains.get(0).run();
+
+        assertEquals(List.of("accepted"), ran);
+        assertEquals(0, serial.queued());
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.chess.server.util;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ServerMetricsTest {
+
+    @Test
+    public void countsKnownTypesAndFoldsUnknownOnesIntoOther() {
+        ServerMetrics metrics = new ServerMetrics(() -> 0, () -> 0, () -> 0);
+        metrics.onRequest("makeMove");
+        metrics.onRequest("makeMove");
+        metrics.onRequest("noSuchType1");
+        metrics.onRequest("noSuchType2");
+        metrics.onError("makeMove");
+        metrics.onRequestCompleted(RequestType.MAKE_MOVE, 2_000_000L);
+        metrics.onRequestCompleted(RequestType.OTHER, 2_000_000L);
+
+        Map<String, Object> snap = metrics.snapshot();
+        assertEquals(4L, snap.get("requestsTotal"));
+        assertEquals(1L, snap.get("requestsErrors"));
+        assertEquals(Map.of("makeMove", 2L, "makeMove_error", 1L, "other", 2L), snap.get("requestsByType"));
+        assertEquals(Set.of("makeMove"), metrics.requestLatencies().keySet());
+        assertTrue((Long) snap.get("lastRequestAtMs") > 0);
+    }
+}
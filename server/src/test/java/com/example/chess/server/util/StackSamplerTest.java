@@ -0,0 +1,90 @@
+package com.example.chess.server.util;
+
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StackSamplerTest {
+
+    private static volatile boolean spinning;
+    private static volatile long sink;
+
+    private static void spin() {
+        long x = 0;
+        while (spinning) x += System.nanoTime() & 7;
+        sink = x;
+    }
+
+    @Test
+    public void foldsStacksOfMatchingThreadsUnderTheirPoolName() throws Exception {
+        spinning = true;
+        Thread busy = new Thread(StackSamplerTest::spin, "sampler-test-busy-7");
+        busy.setDaemon(true);
+        busy.start();
+        try {
+            Map<String, Long> folded = new StackSampler().sample(List.of("sampler-test-busy"), 300, 50, false);
+
+            assertFalse(folded.isEmpty());
+            long total = 0;
+            for (Map.Entry<String, Long> e : folded.entrySet()) {
+                assertTrue(e.getKey(), e.getKey().startsWith("sampler-test-busy;"));
+                assertFalse(e.getKey(), e.getKey().contains(" "));
+                total += e.getValue();
+            }
+            assertTrue("samples " + total, total >= 3);
+            assertTrue(folded.keySet().stream().anyMatch(k -> k.contains("StackSamplerTest.spin")));
+        } finally {
+            spinning = false;
+            busy.join(2_000);
+        }
+    }
+
+    @Test
+    public void skipsThreadsBlockedInSocketReadUnlessIdleIncluded() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(server.getInetAddress(), server.getLocalPort());
+             Socket accepted = server.accept()) {
+            Thread reader = new Thread(() -> {
+                try (InputStream in = accepted.getInputStream()) {
+                    in.read(); // nothing is ever sent; returns when the socket closes
+                } catch (Exception ignored) {
+                }
+            }, "sampler-test-reader-1");
+            reader.setDaemon(true);
+            reader.start();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!blockedInNative(reader)) {
+                assertTrue("reader never blocked", System.nanoTime() < deadline);
+                Thread.sleep(5);
+            }
+            assertTrue(reader.getStackTrace()[0].toString(), StackSampler.isIdleNative(reader.getStackTrace()[0]));
+
+            StackSampler sampler = new StackSampler();
+            assertEquals(Map.of(), sampler.sample(List.of("sampler-test-reader"), 200, 50, false));
+            Map<String, Long> idle = sampler.sample(List.of("sampler-test-reader"), 200, 50, true);
+            assertFalse(idle.isEmpty());
+            assertTrue(idle.toString(), idle.keySet().stream().allMatch(k -> k.startsWith("sampler-test-reader;")));
+        }
+    }
+
+    private static boolean blockedInNative(Thread t) {
+        StackTraceElement[] stack = t.getStackTrace();
+        return t.getState() == Thread.State.RUNNABLE && stack.length > 0 && stack[0].isNativeMethod();
+    }
+
+    @Test
+    public void poolNameStripsThreadNumber() {
+        assertEquals("game-shard", StackSampler.poolName("game-shard-12"));
+        assertEquals("client-handler", StackSampler.poolName("client-handler"));
+        assertEquals("server-timer", StackSampler.poolName("server-timer"));
+        assertEquals("x2", StackSampler.poolName("x2"));
+    }
+}